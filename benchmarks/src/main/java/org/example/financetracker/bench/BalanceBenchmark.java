@@ -0,0 +1,87 @@
+package org.example.financetracker.bench;
+
+import org.example.financetracker.db.ExchangeRateDAO;
+import org.example.financetracker.model.BalancePoint;
+import org.example.financetracker.service.ExchangeRateService;
+import org.example.financetracker.service.TransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Баланс в основной валюте: "тёплый" (суммы уже в памяти) и "холодный" (первый расчёт после запуска),
+// баланс на дату и помесячная история по индексу префиксных сумм
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BalanceBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private ExchangeRateService exchangeRateService;
+    private TransactionService warmService;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkDatabase.open(rows);
+        exchangeRateService = new ExchangeRateService(new ExchangeRateDAO());
+        warmService = new TransactionService(exchangeRateService);
+        warmService.calculateTotalBalance();
+        warmService.balanceIndex();
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkDatabase.close();
+    }
+
+    @Benchmark
+    public BigDecimal totalBalanceWarm() {
+        return warmService.calculateTotalBalance();
+    }
+
+    @Benchmark
+    public Map<String, BigDecimal> incomeExpenseWarm() {
+        return warmService.calculateIncomeExpense();
+    }
+
+    @Benchmark
+    public BigDecimal balanceAsOfYearAgo() {
+        return warmService.calculateBalanceAsOf(LocalDate.now().minusYears(1));
+    }
+
+    @Benchmark
+    public Map<String, BigDecimal> incomeExpenseLastQuarter() {
+        return warmService.calculateIncomeExpense(LocalDate.now().minusMonths(3), LocalDate.now());
+    }
+
+    // 120 точек — помесячный график за 10 лет
+    @Benchmark
+    public List<BalancePoint> monthlyHistory() {
+        return warmService.getBalanceHistory(LocalDate.now().minusYears(10), LocalDate.now(), Period.ofMonths(1));
+    }
+
+    @Benchmark
+    public BigDecimal totalBalanceCold() {
+        return new TransactionService(exchangeRateService).calculateTotalBalance();
+    }
+}
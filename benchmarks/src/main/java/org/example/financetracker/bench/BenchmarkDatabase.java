@@ -0,0 +1,120 @@
+package org.example.financetracker.bench;
+
+import org.example.financetracker.db.CategoryDAO;
+import org.example.financetracker.db.DataSource;
+import org.example.financetracker.db.DatabaseManager;
+import org.example.financetracker.db.ExchangeRateDAO;
+import org.example.financetracker.db.SettingsDAO;
+import org.example.financetracker.db.TransactionDAO;
+import org.example.financetracker.model.Category;
+import org.example.financetracker.model.Transaction;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+// Синтетические БД H2 для бенчмарков: N транзакций в нескольких валютах за 10 лет.
+// Файлы кэшируются в target/bench-db (или -Dbench.dbDir) и пересоздаются только при несовпадении размера.
+final class BenchmarkDatabase {
+    static final String[] CURRENCIES = {"RUB", "USD", "EUR", "CNY", "KZT"};
+    // доли валют в процентах, в том же порядке
+    private static final int[] CURRENCY_WEIGHTS = {70, 15, 10, 3, 2};
+    static final Map<String, BigDecimal> RUB_RATES = Map.of(
+            "USD", new BigDecimal("90.987600"),
+            "EUR", new BigDecimal("98.123400"),
+            "CNY", new BigDecimal("12.600000"),
+            "KZT", new BigDecimal("0.198000"));
+
+    private static final int CHUNK = 10_000;
+    private static final int DAYS = 3_650;
+
+    private BenchmarkDatabase() {
+    }
+
+    // Переключает DataSource на БД с rows транзакциями, при необходимости создавая её
+    static void open(int rows) throws IOException, SQLException {
+        Path dir = Path.of(System.getProperty("bench.dbDir", "target/bench-db")).toAbsolutePath();
+        Files.createDirectories(dir);
+        Path file = dir.resolve("ft_" + rows);
+
+        use(file);
+        DatabaseManager.initializeDatabase();
+        int existing = new TransactionDAO().count();
+        if (existing != rows) {
+            DataSource.shutdown();
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path p : files.filter(p -> p.getFileName().toString().startsWith("ft_" + rows + ".")).toList()) {
+                    Files.delete(p);
+                }
+            }
+            use(file);
+            DatabaseManager.initializeDatabase();
+            generate(rows);
+        }
+
+        new SettingsDAO().setMainCurrency("RUB");
+        // свежие курсы в EXCHANGE_RATES — ExchangeRateService не пойдёт в сеть
+        new ExchangeRateDAO().saveRubRates(RUB_RATES, LocalDateTime.now());
+    }
+
+    static void close() {
+        DataSource.shutdown();
+    }
+
+    private static void use(Path file) {
+        DataSource.shutdown();
+        System.setProperty("financetracker.db.url", "jdbc:h2:file:" + file + ";DB_CLOSE_ON_EXIT=FALSE");
+    }
+
+    private static void generate(int rows) throws SQLException {
+        List<Category> categories = new CategoryDAO().getAll();
+        Random random = new Random(rows);
+        LocalDate start = LocalDate.now().minusDays(DAYS);
+        TransactionDAO dao = new TransactionDAO();
+        long begin = System.nanoTime();
+
+        try (Connection conn = DataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            List<Transaction> chunk = new ArrayList<>(CHUNK);
+            for (int i = 0; i < rows; i++) {
+                Category category = categories.get(random.nextInt(categories.size()));
+                Transaction t = new Transaction();
+                t.setTitle("Операция " + i);
+                t.setAmount(BigDecimal.valueOf(100 + random.nextInt(5_000_000), 2));
+                t.setCurrency(pickCurrency(random));
+                t.setTransaction_date(start.plusDays(random.nextInt(DAYS)));
+                t.setCategory_id(category.getId());
+                chunk.add(t);
+                if (chunk.size() == CHUNK) {
+                    dao.addBatch(conn, chunk);
+                    conn.commit();
+                    chunk.clear();
+                }
+            }
+            dao.addBatch(conn, chunk);
+            conn.commit();
+        }
+        System.out.printf("Создана БД на %d транзакций за %.1f с%n", rows, (System.nanoTime() - begin) / 1e9);
+    }
+
+    private static String pickCurrency(Random random) {
+        int roll = random.nextInt(100);
+        for (int i = 0; i < CURRENCIES.length; i++) {
+            roll -= CURRENCY_WEIGHTS[i];
+            if (roll < 0) {
+                return CURRENCIES[i];
+            }
+        }
+        return CURRENCIES[0];
+    }
+}
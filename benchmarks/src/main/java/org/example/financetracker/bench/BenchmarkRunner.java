@@ -0,0 +1,80 @@
+package org.example.financetracker.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Точка входа benchmarks.jar: обычные опции JMH, но по умолчанию
+// включён профилировщик аллокаций (-prof gc) и результаты пишутся в JSON.
+// С -Dbaseline=<прошлый json> печатает изменение каждого замера относительно базовой линии.
+public final class BenchmarkRunner {
+    private static final String DEFAULT_RESULT = "target/jmh-results.json";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(cmd);
+        if (cmd.getProfilers().isEmpty()) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        if (!cmd.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cmd.getResult().hasValue()) {
+            new File(DEFAULT_RESULT).getParentFile().mkdirs();
+            builder.result(DEFAULT_RESULT);
+        }
+
+        Collection<RunResult> results = new Runner(builder.build()).run();
+
+        String baseline = System.getProperty("baseline");
+        if (baseline != null) {
+            compare(new File(baseline), results);
+        }
+    }
+
+    private static void compare(File baselineFile, Collection<RunResult> results) throws Exception {
+        Map<String, Double> baseline = new HashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(baselineFile)) {
+            Map<String, String> params = new TreeMap<>();
+            run.path("params").fields().forEachRemaining(e -> params.put(e.getKey(), e.getValue().asText()));
+            baseline.put(key(run.path("benchmark").asText(), params), run.path("primaryMetric").path("score").asDouble());
+        }
+
+        System.out.println();
+        System.out.println("Сравнение с " + baselineFile + " (для AverageTime отрицательное изменение — ускорение):");
+        for (RunResult result : results) {
+            Map<String, String> params = new TreeMap<>();
+            for (String name : result.getParams().getParamsKeys()) {
+                params.put(name, result.getParams().getParam(name));
+            }
+            String key = key(result.getParams().getBenchmark(), params);
+            double score = result.getPrimaryResult().getScore();
+            Double before = baseline.get(key);
+            if (before == null || before == 0) {
+                System.out.printf("  %-90s %12.3f %s  (нет в базовой линии)%n", key, score, result.getPrimaryResult().getScoreUnit());
+            } else {
+                System.out.printf("  %-90s %12.3f %s  %+7.1f%%%n", key, score, result.getPrimaryResult().getScoreUnit(),
+                        (score - before) / before * 100);
+            }
+        }
+    }
+
+    private static String key(String benchmark, Map<String, String> params) {
+        return params.isEmpty() ? benchmark : benchmark + params;
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.financetracker.bench;
+
+import org.example.financetracker.db.ExchangeRateDAO;
+import org.example.financetracker.service.ExchangeRateService;
+import org.example.financetracker.service.RateSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Получение курса из снимка: к рублю, от рубля, кросс-курс, по номерам валют;
+// построение снимка с матрицей кросс-курсов по всем валютам ЦБ
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExchangeRateBenchmark {
+
+    private ExchangeRateService service;
+    private Map<String, BigDecimal> allCbrRates;
+    private RateSnapshot snapshot;
+    private int usd;
+    private int eur;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkDatabase.open(10_000);
+        service = new ExchangeRateService(new ExchangeRateDAO());
+        allCbrRates = new HashMap<>();
+        for (int i = 0; i < RateSnapshot.CBR_CURRENCIES.size(); i++) {
+            allCbrRates.put(RateSnapshot.CBR_CURRENCIES.get(i), new BigDecimal(1 + i * 7).add(new BigDecimal("0.1234")));
+        }
+        snapshot = service.getSnapshot();
+        usd = snapshot.indexOf("USD");
+        eur = snapshot.indexOf("EUR");
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkDatabase.close();
+    }
+
+    @Benchmark
+    public BigDecimal toRub() {
+        return service.getRate("USD", "RUB");
+    }
+
+    @Benchmark
+    public BigDecimal fromRub() {
+        return service.getRate("RUB", "EUR");
+    }
+
+    @Benchmark
+    public BigDecimal crossRate() {
+        return service.getRate("USD", "EUR");
+    }
+
+    @Benchmark
+    public BigDecimal crossRateByIndex() {
+        return snapshot.getRate(usd, eur);
+    }
+
+    @Benchmark
+    public RateSnapshot buildSnapshotAllCurrencies() {
+        return new RateSnapshot(allCbrRates, LocalDate.now(), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.financetracker.bench;
+
+import org.example.financetracker.db.TransactionDAO;
+import org.example.financetracker.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Полная загрузка истории. 10M строк в память не помещаются, поэтому только 10k и 1M.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FindAllBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    private TransactionDAO dao;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkDatabase.open(rows);
+        dao = new TransactionDAO();
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkDatabase.close();
+    }
+
+    @Benchmark
+    public List<Transaction> findAll() {
+        return dao.findAll();
+    }
+}
@@ -0,0 +1,197 @@
+package org.example.financetracker.bench;
+
+import org.example.financetracker.api.LocalApiServer;
+import org.example.financetracker.db.ExchangeRateDAO;
+import org.example.financetracker.service.ExchangeRateService;
+import org.example.financetracker.service.StaticRateProvider;
+import org.example.financetracker.service.TransactionService;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Нагрузочная проверка локального HTTP API (не JMH): тысяча клиентов одновременно листают историю,
+// спрашивают баланс, отчёт и курсы с If-None-Match, а каждый пятидесятый отправляет пачку операций.
+// Проверяется, что ошибок нет, повторные запросы получают 304, а после записи ETag меняется
+// и все отправленные операции оказываются в БД.
+//   java -cp benchmarks.jar org.example.financetracker.bench.LocalApiLoad [клиентов] [запросов на клиента] [строк в БД]
+public final class LocalApiLoad {
+    private static final int BULK_EVERY = 50;
+    private static final int BULK_SIZE = 100;
+    private static final Pattern NEXT = Pattern.compile("\"next\":\"([^\"]+)\"");
+
+    private LocalApiLoad() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int requestsPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int rows = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+
+        BenchmarkDatabase.open(rows);
+        List<String> failures = new ArrayList<>();
+        try (ExchangeRateService rates = new ExchangeRateService(new ExchangeRateDAO(),
+                List.of(new StaticRateProvider(BenchmarkDatabase.RUB_RATES)));
+             ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            TransactionService service = new TransactionService(rates);
+            long before = service.countTransactions();
+
+            try (LocalApiServer server = new LocalApiServer(service, rates, 0)) {
+                String base = "http://127.0.0.1:" + server.getPort() + "/api";
+                HttpClient http = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(Duration.ofSeconds(30))
+                        .executor(pool)
+                        .build();
+                String balanceTag = get(http, base + "/balance", null).headers().firstValue("ETag").orElseThrow();
+
+                long[] latencies = new long[clients * requestsPerClient];
+                AtomicInteger recorded = new AtomicInteger();
+                AtomicLong notModified = new AtomicLong();
+                AtomicLong posted = new AtomicLong();
+                ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<>();
+                CountDownLatch go = new CountDownLatch(1);
+                List<Future<?>> calls = new ArrayList<>(clients);
+                for (int c = 0; c < clients; c++) {
+                    int client = c;
+                    calls.add(pool.submit(() -> {
+                        go.await();
+                        String cursor = null;
+                        String[] tags = new String[4];
+                        for (int i = 0; i < requestsPerClient; i++) {
+                            int kind = (client + i) % 4;
+                            String url = switch (kind) {
+                                case 0 -> base + "/balance";
+                                case 1 -> base + "/transactions?limit=50" + (cursor != null ? "&after=" + cursor : "");
+                                case 2 -> base + "/reports/monthly?from=2020-01&to=2020-12";
+                                default -> base + "/rates";
+                            };
+                            boolean bulk = i == requestsPerClient / 2 && client % BULK_EVERY == 0;
+                            long t = System.nanoTime();
+                            HttpResponse<String> response;
+                            try {
+                                response = bulk ? post(http, base + "/transactions", bulkBody(client))
+                                        : get(http, url, kind == 1 ? null : tags[kind]);
+                            } catch (Exception e) {
+                                errors.add(e.toString());
+                                continue;
+                            }
+                            latencies[recorded.getAndIncrement()] = System.nanoTime() - t;
+                            int status = response.statusCode();
+                            if (bulk) {
+                                if (status == 201) {
+                                    posted.addAndGet(BULK_SIZE);
+                                } else {
+                                    errors.add("POST: " + status + " " + response.body());
+                                }
+                            } else if (status == 304) {
+                                notModified.incrementAndGet();
+                            } else if (status == 200) {
+                                tags[kind] = response.headers().firstValue("ETag").orElse(null);
+                                if (kind == 1) {
+                                    // три страницы подряд, затем снова с начала
+                                    Matcher next = NEXT.matcher(response.body());
+                                    cursor = next.find() && i % 3 != 2 ? next.group(1) : null;
+                                }
+                            } else {
+                                errors.add(url + ": " + status + " " + response.body());
+                            }
+                        }
+                        return null;
+                    }));
+                }
+
+                long start = System.nanoTime();
+                go.countDown();
+                for (Future<?> call : calls) {
+                    call.get();
+                }
+                long elapsedNanos = System.nanoTime() - start;
+
+                int done = recorded.get();
+                long[] sorted = Arrays.copyOf(latencies, done);
+                Arrays.sort(sorted);
+                System.out.printf("Клиентов: %d, запросов: %d за %d мс — %.0f запросов/с%n",
+                        clients, done, elapsedNanos / 1_000_000, done / (elapsedNanos / 1e9));
+                System.out.printf("Задержка: p50 %.1f мс, p99 %.1f мс, максимум %.1f мс%n",
+                        percentile(sorted, 0.50), percentile(sorted, 0.99), sorted.length > 0 ? sorted[sorted.length - 1] / 1e6 : 0);
+                System.out.printf("Ответов 304: %d, добавлено операций: %d, ошибок: %d%n",
+                        notModified.get(), posted.get(), errors.size());
+
+                errors.stream().limit(5).forEach(e -> failures.add("запрос: " + e));
+                if (notModified.get() == 0) {
+                    failures.add("ни одного ответа 304");
+                }
+                long after = service.countTransactions();
+                if (after != before + posted.get()) {
+                    failures.add("в БД " + after + " операций вместо " + (before + posted.get()));
+                }
+                if (posted.get() > 0 && get(http, base + "/balance", balanceTag).statusCode() != 200) {
+                    failures.add("ETag баланса не изменился после добавления операций");
+                }
+            }
+        } finally {
+            BenchmarkDatabase.close();
+        }
+
+        if (!failures.isEmpty()) {
+            failures.forEach(f -> System.out.println("ОШИБКА: " + f));
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static HttpResponse<String> get(HttpClient http, String url, String etag) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(60));
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpResponse<String> post(HttpClient http, String url, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String bulkBody(int client) {
+        StringBuilder body = new StringBuilder("[");
+        LocalDate date = LocalDate.of(2024, 1, 1).plusDays(client % 365);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append("{\"title\":\"API ").append(client).append('-').append(i)
+                    .append("\",\"amount\":\"").append(100 + i).append(".25\",\"currency\":\"")
+                    .append(BenchmarkDatabase.CURRENCIES[i % BenchmarkDatabase.CURRENCIES.length])
+                    .append("\",\"date\":\"").append(date).append("\"}");
+        }
+        return body.append(']').toString();
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.financetracker.bench;
+
+import org.example.financetracker.db.CategoryDAO;
+import org.example.financetracker.db.ExchangeRateDAO;
+import org.example.financetracker.db.MonthlySummaryDAO;
+import org.example.financetracker.model.MonthlyReport;
+import org.example.financetracker.service.ExchangeRateService;
+import org.example.financetracker.service.ReportEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+
+// Отчёт по месяцам и категориям за все десять лет истории: чтение строк MONTHLY_SUMMARY и конвертация итогов
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ReportBenchmark {
+
+    @Param({"1000000", "10000000"})
+    public int rows;
+
+    private MonthlySummaryDAO summaryDAO;
+    private ReportEngine engine;
+    private YearMonth from;
+    private YearMonth to;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkDatabase.open(rows);
+        ExchangeRateService rates = new ExchangeRateService(new ExchangeRateDAO());
+        summaryDAO = new MonthlySummaryDAO();
+        engine = new ReportEngine(rates, new CategoryDAO());
+        to = YearMonth.now();
+        from = to.minusYears(10);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkDatabase.close();
+    }
+
+    @Benchmark
+    public MonthlyReport monthlyByCategory() {
+        return engine.build(from, to, "RUB", summaryDAO.findRange(from, to));
+    }
+}
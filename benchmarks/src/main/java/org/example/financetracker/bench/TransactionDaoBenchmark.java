@@ -0,0 +1,75 @@
+package org.example.financetracker.bench;
+
+import org.example.financetracker.db.MonthlySummaryDAO;
+import org.example.financetracker.db.TransactionDAO;
+import org.example.financetracker.model.CurrencyTotal;
+import org.example.financetracker.model.Transaction;
+import org.example.financetracker.model.TransactionKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Чтение истории: первая и "глубокая" страница, агрегат по валютам (по итогам MONTHLY_SUMMARY), подсчёт строк
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TransactionDaoBenchmark {
+    private static final int PAGE_SIZE = 200;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private TransactionDAO dao;
+    private MonthlySummaryDAO summaryDAO;
+    private TransactionKey middlePage;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkDatabase.open(rows);
+        dao = new TransactionDAO();
+        summaryDAO = new MonthlySummaryDAO();
+        List<TransactionKey> starts = dao.findPageStartKeys(PAGE_SIZE);
+        middlePage = starts.get(starts.size() / 2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkDatabase.close();
+    }
+
+    @Benchmark
+    public List<Transaction> firstPage() {
+        return dao.findPageAfter(null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Transaction> middlePage() {
+        return dao.findPageFrom(middlePage, PAGE_SIZE);
+    }
+
+    // суммы по валюте и типу категории, из которых баланс заполняет текущие итоги
+    @Benchmark
+    public List<CurrencyTotal> summaryByCurrencyAndType() {
+        return summaryDAO.sumByCurrencyAndType();
+    }
+
+    @Benchmark
+    public int count() {
+        return dao.count();
+    }
+}
@@ -5,6 +5,7 @@ module org.example.financetracker {
     requires com.h2database;
     requires org.slf4j;
     requires java.net.http;
+    requires jdk.httpserver;
     requires com.fasterxml.jackson.databind;
 
     opens org.example.financetracker.ui to javafx.fxml;
@@ -14,4 +15,8 @@ module org.example.financetracker {
     exports org.example.financetracker.model;
     exports org.example.financetracker.service;
     exports org.example.financetracker.db;
+    exports org.example.financetracker.api;
+
+    // сторонние источники курсов (ExchangeRateService)
+    uses org.example.financetracker.service.RateProvider;
 }
\ No newline at end of file
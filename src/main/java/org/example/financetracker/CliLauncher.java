@@ -0,0 +1,371 @@
+package org.example.financetracker;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.example.financetracker.api.LocalApiServer;
+import org.example.financetracker.db.DataSource;
+import org.example.financetracker.db.DatabaseManager;
+import org.example.financetracker.db.ExchangeRateDAO;
+import org.example.financetracker.db.SettingsDAO;
+import org.example.financetracker.model.MonthlyReport;
+import org.example.financetracker.model.ReportRow;
+import org.example.financetracker.model.Transaction;
+import org.example.financetracker.model.TransactionKey;
+import org.example.financetracker.service.ExchangeRateService;
+import org.example.financetracker.service.ImportResult;
+import org.example.financetracker.service.TransactionService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// Пакетный режим без JavaFX (cron, сервер без дисплея): те же TransactionService, ExchangeRateService и DAO,
+// результат — JSON или CSV в stdout (или в файл через --out), журнал — только предупреждения в stderr.
+// Классы JavaFX на этом пути не загружаются.
+//   java -cp ... org.example.financetracker.CliLauncher balance [--date 2024-12-31] [--format csv]
+public class CliLauncher {
+    private static final String USAGE = """
+            Использование: CliLauncher <команда> [параметры]
+              balance [--date ГГГГ-ММ-ДД]            баланс, доходы и расходы (или баланс на дату)
+              report --from ГГГГ-ММ --to ГГГГ-ММ     доходы и расходы по месяцам и категориям
+              import <файл>                          импорт выписки (CSV или OFX)
+              export [--out <файл>]                  все транзакции (CSV совместим с импортом)
+              rebuild-summary                        пересчёт таблицы итогов по месяцам
+              serve [--port 8765]                    локальный HTTP API до Ctrl+C
+            Общие параметры:
+              --format json|csv                      формат вывода (по умолчанию json)
+              --db <путь>                            файл БД вместо ./finance_tracker
+            """;
+    // команды, после которых файл БД не уплотняется при закрытии: операции они не меняют, но пишут в БД
+    // (миграции схемы, свежие курсы и их история), поэтому для блокировок и параллельного доступа
+    // это не "только чтение"
+    private static final Set<String> NO_COMPACT_COMMANDS = Set.of("balance", "report", "export");
+    private static final JsonFactory JSON = new JsonFactory();
+    // транзакций на одну страницу при выгрузке
+    private static final int EXPORT_PAGE = 5_000;
+
+    private final SettingsDAO settingsDAO = new SettingsDAO();
+    private final Map<String, String> options;
+    private final List<String> arguments;
+    private final boolean csv;
+
+    private CliLauncher(Map<String, String> options, List<String> arguments) {
+        this.options = options;
+        this.arguments = arguments;
+        String format = options.getOrDefault("format", "json");
+        if (!format.equals("json") && !format.equals("csv")) {
+            throw new IllegalArgumentException("Неизвестный формат: " + format);
+        }
+        this.csv = format.equals("csv");
+    }
+
+    public static void main(String[] args) {
+        // до первого обращения к журналу: в stdout должен попадать только результат
+        if (System.getProperty("logback.configurationFile") == null) {
+            System.setProperty("logback.configurationFile", "cli-logback.xml");
+        }
+        System.exit(run(args));
+    }
+
+    // Код завершения: 0 — успех, 1 — ошибка выполнения, 2 — неверные параметры
+    static int run(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        List<String> arguments = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith("--")) {
+                if (i + 1 >= args.length) {
+                    System.err.println("Не задано значение параметра " + args[i]);
+                    return 2;
+                }
+                options.put(args[i].substring(2), args[++i]);
+            } else {
+                arguments.add(args[i]);
+            }
+        }
+        if (arguments.isEmpty()) {
+            System.err.print(USAGE);
+            return 2;
+        }
+        if (options.containsKey("db")) {
+            Path db = Path.of(options.get("db")).toAbsolutePath();
+            System.setProperty("financetracker.db.url", "jdbc:h2:file:" + db + ";DB_CLOSE_ON_EXIT=FALSE");
+        }
+        if (NO_COMPACT_COMMANDS.contains(arguments.get(0))) {
+            // без уплотнения файла при закрытии: H2 тратит на него до 200 мс, а без JIT — больше секунды,
+            // хотя команда записала самое большее несколько строк курсов; файл уплотнит следующий запуск другой команды
+            System.setProperty("financetracker.db.url", DataSource.url() + ";MAX_COMPACT_TIME=0");
+        }
+
+        try {
+            return new CliLauncher(options, arguments).execute();
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            return 2;
+        } catch (Exception e) {
+            System.err.println("Ошибка: " + e.getMessage());
+            return 1;
+        } finally {
+            // закрываем соединения пула, иначе H2 не сбросит файл БД (DB_CLOSE_ON_EXIT=FALSE)
+            DataSource.shutdown();
+        }
+    }
+
+    private int execute() throws Exception {
+        DatabaseManager.initializeDatabase();
+        try (ExchangeRateService exchangeRateService = new ExchangeRateService(new ExchangeRateDAO())) {
+            TransactionService transactionService = new TransactionService(exchangeRateService);
+            String command = arguments.get(0);
+            switch (command) {
+                case "balance" -> balance(transactionService);
+                case "report" -> report(transactionService);
+                case "import" -> importFile(transactionService);
+                case "export" -> export(transactionService);
+                case "rebuild-summary" -> rebuildSummary(transactionService);
+                case "serve" -> serve(transactionService, exchangeRateService);
+                default -> throw new IllegalArgumentException("Неизвестная команда: " + command);
+            }
+        }
+        return 0;
+    }
+
+    // == КОМАНДЫ ==
+    private void balance(TransactionService service) throws IOException {
+        String currency = settingsDAO.getMainCurrency();
+        if (options.containsKey("date")) {
+            LocalDate date = LocalDate.parse(options.get("date"));
+            writeRecord(List.of("currency", "date", "balance"), Arrays.asList(currency, date, service.calculateBalanceAsOf(date)));
+            return;
+        }
+        BigDecimal balance = service.calculateTotalBalance();
+        Map<String, BigDecimal> totals = service.calculateIncomeExpense();
+        writeRecord(List.of("currency", "balance", "income", "expense"),
+                Arrays.asList(currency, balance, totals.get("income"), totals.get("expense")));
+    }
+
+    private void report(TransactionService service) throws IOException {
+        YearMonth from = YearMonth.parse(required("from"));
+        YearMonth to = YearMonth.parse(required("to"));
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("--from позже --to");
+        }
+        MonthlyReport report = service.buildMonthlyReport(from, to);
+        try (Output out = openOutput()) {
+            if (csv) {
+                out.csvLine("month", "category", "type", "amount", "currency");
+                for (ReportRow row : report.getRows()) {
+                    out.csvLine(row.getMonth(), row.getCategoryName(), row.getType(), row.getAmount(), report.getCurrency());
+                }
+                return;
+            }
+            JsonGenerator json = out.json();
+            json.writeStartObject();
+            json.writeStringField("currency", report.getCurrency());
+            json.writeStringField("from", from.toString());
+            json.writeStringField("to", to.toString());
+            json.writeArrayFieldStart("rows");
+            for (ReportRow row : report.getRows()) {
+                json.writeStartObject();
+                json.writeStringField("month", row.getMonth().toString());
+                if (row.getCategoryId() != null) {
+                    json.writeNumberField("categoryId", row.getCategoryId());
+                }
+                json.writeStringField("category", row.getCategoryName());
+                json.writeStringField("type", row.getType());
+                json.writeNumberField("amount", row.getAmount());
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    // Работает до Ctrl+C (SIGTERM): обработчик завершения ждёт, пока API остановится и пул закроет БД
+    private void serve(TransactionService service, ExchangeRateService exchangeRateService) throws Exception {
+        int port = Integer.parseInt(options.getOrDefault("port", "8765"));
+        CountDownLatch stopRequested = new CountDownLatch(1);
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            stopRequested.countDown();
+            try {
+                stopped.await(20, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "api-shutdown"));
+        try (LocalApiServer server = new LocalApiServer(service, exchangeRateService, port)) {
+            System.err.println("API: http://127.0.0.1:" + server.getPort() + "/api (Ctrl+C — остановить)");
+            stopRequested.await();
+        } finally {
+            exchangeRateService.close();
+            DataSource.shutdown();
+            stopped.countDown();
+        }
+    }
+
+    private void importFile(TransactionService service) throws IOException {
+        if (arguments.size() < 2) {
+            throw new IllegalArgumentException("Не указан файл выписки");
+        }
+        Path file = Path.of(arguments.get(1));
+        ImportResult result = service.importStatement(file);
+        writeRecord(List.of("file", "imported", "resumed", "rejected", "millis"),
+                Arrays.asList(file, result.getRowsImported(), result.getRowsResumed(), result.getRowsRejected(),
+                        result.getElapsed().toMillis()));
+    }
+
+    // Постранично по ключу (дата, id), в памяти не больше одной страницы
+    private void export(TransactionService service) throws IOException {
+        try (Output out = openOutput()) {
+            JsonGenerator json = csv ? null : out.json();
+            if (csv) {
+                out.csvLine("date", "title", "amount", "currency", "category");
+            } else {
+                json.writeStartArray();
+            }
+            TransactionKey after = null;
+            List<Transaction> page;
+            do {
+                page = service.getTransactionPage(after, EXPORT_PAGE);
+                for (Transaction t : page) {
+                    String category = t.getCategory() != null ? t.getCategory().getName() : null;
+                    // тип — из категории: getCategoryType() отдаёт подпись для таблицы ("Доход"), а не income
+                    boolean income = t.getCategory() != null && "income".equals(t.getCategory().getType());
+                    if (csv) {
+                        // расход со знаком минус — как в выписке, файл можно снова импортировать
+                        out.csvLine(t.getTransaction_date(), t.getTitle(), income ? t.getAmount() : t.getAmount().negate(),
+                                t.getCurrency(), category);
+                        continue;
+                    }
+                    json.writeStartObject();
+                    json.writeNumberField("id", t.getId());
+                    json.writeStringField("date", t.getTransaction_date().toString());
+                    json.writeStringField("title", t.getTitle());
+                    json.writeNumberField("amount", t.getAmount());
+                    json.writeStringField("currency", t.getCurrency());
+                    json.writeStringField("category", category);
+                    json.writeStringField("type", income ? "income" : "expense");
+                    json.writeEndObject();
+                }
+                if (!page.isEmpty()) {
+                    after = TransactionKey.of(page.get(page.size() - 1));
+                }
+            } while (page.size() == EXPORT_PAGE);
+            if (!csv) {
+                json.writeEndArray();
+            }
+        }
+    }
+
+    private void rebuildSummary(TransactionService service) throws IOException {
+        writeRecord(List.of("rows"), List.of(service.rebuildMonthlySummary()));
+    }
+
+    // == ВЫВОД ==
+    private String required(String option) {
+        String value = options.get(option);
+        if (value == null) {
+            throw new IllegalArgumentException("Не задан параметр --" + option);
+        }
+        return value;
+    }
+
+    // Одна запись: объект JSON или строка заголовка и строка значений CSV
+    private void writeRecord(List<String> names, List<Object> values) throws IOException {
+        try (Output out = openOutput()) {
+            if (csv) {
+                out.csvLine(names.toArray());
+                out.csvLine(values.toArray());
+                return;
+            }
+            JsonGenerator json = out.json();
+            json.writeStartObject();
+            for (int i = 0; i < names.size(); i++) {
+                Object value = values.get(i);
+                json.writeFieldName(names.get(i));
+                if (value instanceof BigDecimal decimal) {
+                    json.writeNumber(decimal);
+                } else if (value instanceof Number number) {
+                    json.writeNumber(number.longValue());
+                } else if (value == null) {
+                    json.writeNull();
+                } else {
+                    json.writeString(value.toString());
+                }
+            }
+            json.writeEndObject();
+        }
+    }
+
+    private Output openOutput() throws IOException {
+        String file = options.get("out");
+        OutputStream stream = file != null ? Files.newOutputStream(Path.of(file)) : System.out;
+        return new Output(stream, file != null);
+    }
+
+    // Буферизованный вывод в stdout или файл; stdout не закрывается, только сбрасывается
+    private static final class Output implements AutoCloseable {
+        private final OutputStream stream;
+        private final boolean closeStream;
+        private final Writer writer;
+        private JsonGenerator json;
+
+        Output(OutputStream stream, boolean closeStream) {
+            this.stream = stream;
+            this.closeStream = closeStream;
+            this.writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 1 << 16);
+        }
+
+        JsonGenerator json() throws IOException {
+            if (json == null) {
+                json = JSON.createGenerator(writer);
+                json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            }
+            return json;
+        }
+
+        // Поля через запятую; с запятой, кавычкой или переводом строки — в кавычках
+        void csvLine(Object... fields) throws IOException {
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                String value = fields[i] instanceof BigDecimal decimal ? decimal.toPlainString()
+                        : fields[i] != null ? fields[i].toString() : "";
+                if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                    value = '"' + value.replace("\"", "\"\"") + '"';
+                }
+                writer.write(value);
+            }
+            writer.write('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (json != null) {
+                json.close();
+                writer.write('\n');
+            }
+            writer.flush();
+            if (closeStream) {
+                stream.close();
+            }
+        }
+    }
+}
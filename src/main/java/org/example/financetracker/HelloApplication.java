@@ -4,8 +4,12 @@ import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import org.example.financetracker.api.LocalApiServer;
+import org.example.financetracker.db.DataSource;
 import org.example.financetracker.db.DatabaseManager;
 import org.example.financetracker.db.SettingsDAO;
+import org.example.financetracker.ui.FxStallWatchdog;
+import org.example.financetracker.ui.MainController;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -33,6 +37,18 @@ public class HelloApplication extends Application {
         }
 
         stage.show();
+        // предупреждения в логе, если поток JavaFX занят дольше одного кадра
+        FxStallWatchdog.start();
+    }
+
+    @Override
+    public void stop() {
+        FxStallWatchdog.stop();
+        // сначала всё, что обращается к БД: API, фоновые задачи окна, загрузка курсов
+        LocalApiServer.stopRunning();
+        MainController.closeServices();
+        // закрываем соединения пула, иначе H2 не сбросит файл БД (DB_CLOSE_ON_EXIT=FALSE)
+        DataSource.shutdown();
     }
 
     private boolean isFirstLaunch() throws SQLException {
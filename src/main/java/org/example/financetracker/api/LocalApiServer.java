@@ -0,0 +1,571 @@
+package org.example.financetracker.api;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.example.financetracker.db.CategoryDAO;
+import org.example.financetracker.db.SettingsDAO;
+import org.example.financetracker.model.Category;
+import org.example.financetracker.model.MonthlyReport;
+import org.example.financetracker.model.ReportRow;
+import org.example.financetracker.model.Transaction;
+import org.example.financetracker.model.TransactionKey;
+import org.example.financetracker.service.ExchangeRateService;
+import org.example.financetracker.service.RateSnapshot;
+import org.example.financetracker.service.TransactionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Локальный HTTP API (только 127.0.0.1) для скриптов и домашних панелей: работает внутри запущенного приложения,
+// поэтому не конфликтует с блокировкой файла БД. Каждый запрос — на своём виртуальном потоке.
+//   GET  /api/transactions?limit=100&after=2024-05-01:123   страница истории (keyset), в ответе курсор next
+//   POST /api/transactions                                  массовое добавление: JSON-массив операций
+//   GET  /api/balance[?date=2024-12-31]                     баланс, доходы и расходы в основной валюте
+//   GET  /api/reports/monthly?from=2024-01&to=2024-12       доходы и расходы по месяцам и категориям
+//   GET  /api/rates                                         текущие курсы к рублю
+// На GET отдаётся ETag из номера изменения данных (и номера изменения курсов): совпавший If-None-Match получает 304
+// до выборки и расчётов.
+public class LocalApiServer implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(LocalApiServer.class);
+    // порт API в приложении: -Dfinancetracker.api.port=8765 (без свойства API не запускается)
+    public static final String PORT_PROPERTY = "financetracker.api.port";
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final int DEFAULT_PAGE = 100;
+    private static final int MAX_PAGE = 1_000;
+    // операций в одном POST
+    private static final int MAX_BULK = 10_000;
+    private static final int BACKLOG = 1_024;
+    // сколько ждать выполняющиеся запросы при остановке
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+    // DECIMAL(15,2): 13 знаков до запятой
+    private static final BigDecimal MAX_AMOUNT = BigDecimal.TEN.pow(13);
+    // раньше — явная ошибка ввода; заодно номер дня в индексе баланса остаётся в пределах int
+    private static final LocalDate MIN_DATE = LocalDate.of(1900, 1, 1);
+
+    // экземпляр, запущенный приложением (см. startIfConfigured)
+    private static LocalApiServer running;
+
+    private final TransactionService transactionService;
+    private final ExchangeRateService exchangeRateService;
+    private final SettingsDAO settingsDAO = new SettingsDAO();
+    private final CategoryDAO categoryDAO = new CategoryDAO();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    // номер запуска в ETag: после перезапуска старые ETag клиентов не совпадут с новыми
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+    // Ответ с ETag: тело пишется только при несовпадении If-None-Match
+    private interface JsonBody {
+        void write(JsonGenerator json) throws IOException;
+    }
+
+    // Порт 0 — любой свободный
+    public LocalApiServer(TransactionService transactionService, ExchangeRateService exchangeRateService, int port)
+            throws IOException {
+        this.transactionService = transactionService;
+        this.exchangeRateService = exchangeRateService;
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("api-", 0).factory());
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        server.createContext("/api/transactions", exchange -> handle(exchange, this::transactions));
+        server.createContext("/api/balance", exchange -> handle(exchange, this::balance));
+        server.createContext("/api/reports/monthly", exchange -> handle(exchange, this::monthlyReport));
+        server.createContext("/api/rates", exchange -> handle(exchange, this::rates));
+        server.createContext("/", exchange -> handle(exchange, (e, query) -> {
+            throw new NotFound();
+        }));
+        server.setExecutor(executor);
+        server.start();
+        log.info("Локальный API запущен: http://127.0.0.1:{}/api", getPort());
+    }
+
+    // Запуск из приложения, если задан порт; ошибка запуска (порт занят) не мешает работе интерфейса
+    public static synchronized void startIfConfigured(TransactionService transactionService,
+                                                      ExchangeRateService exchangeRateService) {
+        Integer port = Integer.getInteger(PORT_PROPERTY);
+        if (port == null || running != null) {
+            return;
+        }
+        try {
+            running = new LocalApiServer(transactionService, exchangeRateService, port);
+        } catch (IOException e) {
+            log.warn("Локальный API не запущен на порту {}: {}", port, e.toString());
+        }
+    }
+
+    // Поток диспетчера HttpServer не демон — без остановки JVM не завершится после закрытия окна
+    public static synchronized void stopRunning() {
+        if (running != null) {
+            running.close();
+            running = null;
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // == ОБРАБОТЧИКИ ==
+    private interface Handler {
+        void handle(HttpExchange exchange, Map<String, String> query) throws IOException;
+    }
+
+    private void transactions(HttpExchange exchange, Map<String, String> query) throws IOException {
+        if ("POST".equals(exchange.getRequestMethod())) {
+            addTransactions(exchange);
+            return;
+        }
+        requireGet(exchange);
+        int limit = query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : DEFAULT_PAGE;
+        if (limit < 1 || limit > MAX_PAGE) {
+            throw new IllegalArgumentException("limit должен быть от 1 до " + MAX_PAGE);
+        }
+        TransactionKey after = query.containsKey("after") ? parseCursor(query.get("after")) : null;
+        respond(exchange, etag(false), json -> {
+            List<Transaction> page = transactionService.getTransactionPage(after, limit);
+            json.writeStartObject();
+            json.writeArrayFieldStart("items");
+            for (Transaction t : page) {
+                writeTransaction(json, t);
+            }
+            json.writeEndArray();
+            if (page.size() == limit) {
+                TransactionKey last = TransactionKey.of(page.get(page.size() - 1));
+                json.writeStringField("next", last.getDate() + ":" + last.getId());
+            } else {
+                json.writeNullField("next");
+            }
+            json.writeEndObject();
+        });
+    }
+
+    private void balance(HttpExchange exchange, Map<String, String> query) throws IOException {
+        requireGet(exchange);
+        LocalDate date = query.containsKey("date") ? LocalDate.parse(query.get("date")) : null;
+        respond(exchange, etag(true), json -> {
+            json.writeStartObject();
+            json.writeStringField("currency", settingsDAO.getMainCurrency());
+            if (date != null) {
+                json.writeStringField("date", date.toString());
+                json.writeNumberField("balance", transactionService.calculateBalanceAsOf(date));
+            } else {
+                Map<String, BigDecimal> totals = transactionService.calculateIncomeExpense();
+                json.writeNumberField("balance", transactionService.calculateTotalBalance());
+                json.writeNumberField("income", totals.get("income"));
+                json.writeNumberField("expense", totals.get("expense"));
+            }
+            json.writeEndObject();
+        });
+    }
+
+    private void monthlyReport(HttpExchange exchange, Map<String, String> query) throws IOException {
+        requireGet(exchange);
+        YearMonth from = YearMonth.parse(required(query, "from"));
+        YearMonth to = YearMonth.parse(required(query, "to"));
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from позже to");
+        }
+        respond(exchange, etag(true), json -> {
+            MonthlyReport report = transactionService.buildMonthlyReport(from, to);
+            json.writeStartObject();
+            json.writeStringField("currency", report.getCurrency());
+            json.writeStringField("from", from.toString());
+            json.writeStringField("to", to.toString());
+            json.writeArrayFieldStart("rows");
+            for (ReportRow row : report.getRows()) {
+                json.writeStartObject();
+                json.writeStringField("month", row.getMonth().toString());
+                if (row.getCategoryId() != null) {
+                    json.writeNumberField("categoryId", row.getCategoryId());
+                }
+                json.writeStringField("category", row.getCategoryName());
+                json.writeStringField("type", row.getType());
+                json.writeNumberField("amount", row.getAmount());
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        });
+    }
+
+    private void rates(HttpExchange exchange, Map<String, String> query) throws IOException {
+        requireGet(exchange);
+        // версия читается до снимка: при гонке с обновлением новые курсы уйдут со старым ETag, а не наоборот
+        long ratesVersion = exchangeRateService.getRatesVersion();
+        RateSnapshot snapshot = exchangeRateService.getSnapshot();
+        respond(exchange, "W/\"" + epoch + "-r" + ratesVersion + "\"", json -> {
+            json.writeStartObject();
+            json.writeStringField("date", snapshot.getRateDate() != null ? snapshot.getRateDate().toString() : null);
+            json.writeStringField("fetchedAt", snapshot.getFetchedAt() != null ? snapshot.getFetchedAt().toString() : null);
+            json.writeObjectFieldStart("rates");
+            for (String currency : snapshot.currencyList()) {
+                BigDecimal rate = snapshot.getRate(currency, "RUB");
+                if (rate != null && !"RUB".equals(currency)) {
+                    json.writeNumberField(currency, rate);
+                }
+            }
+            json.writeEndObject();
+            json.writeEndObject();
+        });
+    }
+
+    // Тело — JSON-массив {"title", "amount" (> 0), "currency", "date", "categoryId"?}; всё или ничего
+    private void addTransactions(HttpExchange exchange) throws IOException {
+        // простая форма с чужой страницы не может прислать application/json без предварительного CORS-запроса
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType == null || !contentType.split(";", 2)[0].trim().equalsIgnoreCase("application/json")) {
+            throw new Rejected(415, "Ожидается Content-Type: application/json");
+        }
+        List<Transaction> batch;
+        try (InputStream in = exchange.getRequestBody(); JsonParser parser = JSON.createParser(in)) {
+            batch = readTransactions(parser);
+        }
+        transactionService.addTransactions(batch);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (JsonGenerator json = JSON.createGenerator(body)) {
+            json.writeStartObject();
+            json.writeNumberField("added", batch.size());
+            json.writeArrayFieldStart("ids");
+            for (Transaction t : batch) {
+                json.writeNumber(t.getId());
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+        send(exchange, 201, null, body.toByteArray());
+    }
+
+    private List<Transaction> readTransactions(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("Ожидается JSON-массив операций");
+        }
+        List<Transaction> batch = new ArrayList<>();
+        Map<Long, Category> categories = new HashMap<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            if (batch.size() == MAX_BULK) {
+                throw new IllegalArgumentException("Не больше " + MAX_BULK + " операций за запрос");
+            }
+            Transaction t = new Transaction();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "title" -> t.setTitle(parser.getValueAsString());
+                    case "amount" -> {
+                        String amount = textValue(parser);
+                        try {
+                            t.setAmount(amount != null ? new BigDecimal(amount) : null);
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException("Операция " + batch.size() + ": amount — не число: " + amount);
+                        }
+                    }
+                    case "currency" -> t.setCurrency(parser.getValueAsString());
+                    case "date" -> {
+                        String date = textValue(parser);
+                        t.setTransaction_date(date != null ? LocalDate.parse(date) : null);
+                    }
+                    case "categoryId" -> t.setCategory_id(parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getLongValue());
+                    default -> parser.skipChildren();
+                }
+            }
+            validate(t, batch.size(), categories);
+            batch.add(t);
+        }
+        if (parser.currentToken() != JsonToken.END_ARRAY) {
+            throw new IllegalArgumentException("Ожидается объект операции");
+        }
+        return batch;
+    }
+
+    // Строковое или числовое значение поля; null для null, объекта и массива
+    private static String textValue(JsonParser parser) throws IOException {
+        return parser.currentToken().isScalarValue() ? parser.getValueAsString() : null;
+    }
+
+    private void validate(Transaction t, int index, Map<Long, Category> categories) {
+        String where = "Операция " + index + ": ";
+        if (t.getTitle() == null || t.getTitle().isBlank() || t.getTitle().length() > 100) {
+            throw new IllegalArgumentException(where + "title обязателен, до 100 символов");
+        }
+        if (t.getAmount() == null || t.getAmount().signum() <= 0 || t.getAmount().scale() > 2
+                || t.getAmount().compareTo(MAX_AMOUNT) >= 0) {
+            throw new IllegalArgumentException(where + "amount — положительная сумма меньше 10^13, не больше двух знаков после запятой");
+        }
+        if (t.getCurrency() == null || !t.getCurrency().matches("[A-Z]{3}")) {
+            throw new IllegalArgumentException(where + "currency — код валюты из трёх букв");
+        }
+        if (!exchangeRateService.isKnownCurrency(t.getCurrency())) {
+            throw new IllegalArgumentException(where + "неизвестная валюта " + t.getCurrency());
+        }
+        if (t.getTransaction_date() == null) {
+            throw new IllegalArgumentException(where + "date обязательна");
+        }
+        if (t.getTransaction_date().isBefore(MIN_DATE) || t.getTransaction_date().isAfter(LocalDate.now().plusYears(1))) {
+            throw new IllegalArgumentException(where + "date — не раньше " + MIN_DATE + " и не позже чем через год");
+        }
+        if (t.getCategory_id() != null) {
+            Category category = categories.computeIfAbsent(t.getCategory_id(), categoryDAO::getById);
+            if (category == null) {
+                throw new IllegalArgumentException(where + "категория " + t.getCategory_id() + " не найдена");
+            }
+            t.setCategory(category);
+        }
+    }
+
+    private static void writeTransaction(JsonGenerator json, Transaction t) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", t.getId());
+        json.writeStringField("date", t.getTransaction_date().toString());
+        json.writeStringField("title", t.getTitle());
+        json.writeNumberField("amount", t.getAmount());
+        json.writeStringField("currency", t.getCurrency());
+        if (t.getCategory_id() != null) {
+            json.writeNumberField("categoryId", t.getCategory_id());
+        }
+        json.writeStringField("category", t.getCategory() != null ? t.getCategory().getName() : null);
+        // тип — из категории: getCategoryType() отдаёт подпись для таблицы ("Доход"), а не income
+        json.writeStringField("type", t.getCategory() != null && "income".equals(t.getCategory().getType()) ? "income" : "expense");
+        json.writeEndObject();
+    }
+
+    // == HTTP ==
+    private void handle(HttpExchange exchange, Handler handler) {
+        try (exchange) {
+            try {
+                // контекст совпадает по префиксу: /api/balance/x — не баланс
+                if (!exchange.getRequestURI().getPath().equals(exchange.getHttpContext().getPath())) {
+                    throw new NotFound();
+                }
+                checkSameMachine(exchange);
+                handler.handle(exchange, parseQuery(exchange.getRequestURI().getRawQuery()));
+            } catch (NotFound e) {
+                sendError(exchange, 404, "Нет такого ресурса: " + exchange.getRequestURI().getPath());
+            } catch (Rejected e) {
+                sendError(exchange, e.status, e.getMessage());
+            } catch (MethodNotAllowed e) {
+                exchange.getResponseHeaders().set("Allow", e.getMessage());
+                sendError(exchange, 405, "Метод не поддерживается");
+            } catch (JsonParseException e) {
+                sendError(exchange, 400, "Некорректный JSON: " + e.getOriginalMessage());
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                sendError(exchange, 400, e.getMessage());
+            } catch (Exception e) {
+                log.error("Ошибка обработки запроса {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+                sendError(exchange, 500, "Внутренняя ошибка");
+            }
+        } catch (IOException e) {
+            // клиент закрыл соединение
+            log.debug("Ответ на {} не отправлен: {}", exchange.getRequestURI(), e.getMessage());
+        }
+    }
+
+    private static final class MethodNotAllowed extends RuntimeException {
+        MethodNotAllowed(String allowed) {
+            super(allowed, null, false, false);
+        }
+    }
+
+    // Отказ с заданным кодом ответа
+    private static final class Rejected extends RuntimeException {
+        private final int status;
+
+        Rejected(int status, String message) {
+            super(message, null, false, false);
+            this.status = status;
+        }
+    }
+
+    private static final class NotFound extends RuntimeException {
+        NotFound() {
+            super(null, null, false, false);
+        }
+    }
+
+    // Запрос от программы на этом же компьютере, а не от открытой в браузере страницы:
+    // Host — имя loopback (иначе это DNS rebinding), Origin, если есть, — тоже с localhost
+    private static void checkSameMachine(HttpExchange exchange) {
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        if (host == null || !isLoopbackName(hostName(host))) {
+            throw new Rejected(403, "Допустим только Host: localhost или 127.0.0.1");
+        }
+        String origin = exchange.getRequestHeaders().getFirst("Origin");
+        if (origin != null && !isLoopbackOrigin(origin)) {
+            throw new Rejected(403, "Запросы со страниц других сайтов не принимаются");
+        }
+    }
+
+    // Имя из Host без порта; [::1]:8765 → ::1
+    private static String hostName(String host) {
+        if (host.startsWith("[")) {
+            int end = host.indexOf(']');
+            return end > 0 ? host.substring(1, end) : host;
+        }
+        int colon = host.indexOf(':');
+        return colon >= 0 ? host.substring(0, colon) : host;
+    }
+
+    private static boolean isLoopbackName(String name) {
+        return name.equalsIgnoreCase("localhost") || name.equals("127.0.0.1") || name.equals("::1");
+    }
+
+    // Origin: null (file://, песочница) и адреса других сайтов — не локальные
+    private static boolean isLoopbackOrigin(String origin) {
+        try {
+            URI uri = new URI(origin);
+            String host = uri.getHost();
+            if (host != null && host.startsWith("[") && host.endsWith("]")) {
+                host = host.substring(1, host.length() - 1);
+            }
+            return ("http".equals(uri.getScheme()) || "https".equals(uri.getScheme())) && host != null && isLoopbackName(host);
+        } catch (URISyntaxException e) {
+            return false;
+        }
+    }
+
+    // HEAD — тот же ответ без тела
+    private static void requireGet(HttpExchange exchange) {
+        String method = exchange.getRequestMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            throw new MethodNotAllowed(exchange.getHttpContext().getPath().equals("/api/transactions") ? "GET, HEAD, POST" : "GET, HEAD");
+        }
+    }
+
+    // Слабый ETag: номер запуска, номер изменения данных, а для сумм в основной валюте — валюта и номер изменения курсов
+    private String etag(boolean dependsOnRates) {
+        StringBuilder tag = new StringBuilder("W/\"").append(epoch).append('-').append(transactionService.getDataVersion());
+        if (dependsOnRates) {
+            tag.append('-').append(settingsDAO.getMainCurrency())
+                    .append('-').append(exchangeRateService.getRatesVersion());
+        }
+        return tag.append('"').toString();
+    }
+
+    private static void respond(HttpExchange exchange, String etag, JsonBody body) throws IOException {
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null && matches(ifNoneMatch, etag)) {
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        try (JsonGenerator json = JSON.createGenerator(bytes)) {
+            body.write(json);
+        }
+        send(exchange, 200, etag, bytes.toByteArray());
+    }
+
+    // If-None-Match может содержать список тегов или *; слабое сравнение
+    private static boolean matches(String header, String etag) {
+        String opaque = etag.substring(2);
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void send(HttpExchange exchange, int status, String etag, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        if (etag != null) {
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        }
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JsonGenerator json = JSON.createGenerator(bytes)) {
+            json.writeStartObject();
+            json.writeStringField("error", message);
+            json.writeEndObject();
+        }
+        send(exchange, status, null, bytes.toByteArray());
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    private static String required(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Не задан параметр " + name);
+        }
+        return value;
+    }
+
+    // Курсор страницы "ГГГГ-ММ-ДД:id" — ключ последней операции предыдущей страницы
+    private static TransactionKey parseCursor(String cursor) {
+        int colon = cursor.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Курсор after в формате ГГГГ-ММ-ДД:id");
+        }
+        return new TransactionKey(LocalDate.parse(cursor.substring(0, colon)), Long.parseLong(cursor.substring(colon + 1)));
+    }
+
+    // Новые запросы не принимаются; выполняющиеся получают до секунды на завершение
+    @Override
+    public void close() {
+        // новые соединения не принимаются, начатые обмены — до секунды
+        server.stop(1);
+        executor.shutdown();
+        try {
+            // обработчики, ещё пишущие в БД, дорабатывают до закрытия пула соединений
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Запросы к API не завершились за {} с, прерываем", CLOSE_TIMEOUT_SECONDS);
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        log.info("Локальный API остановлен");
+    }
+}
@@ -7,12 +7,28 @@ import org.slf4j.LoggerFactory;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
+// Категории читаются из CategoryRegistry (один запрос за время работы), add/delete обновляют его сразу
 public class CategoryDAO {
     private static final Logger log = LoggerFactory.getLogger(CategoryDAO.class);
 
-    // 1. Получить все категории
+    // 1. Получить все категории (по типу, затем по имени)
     public List<Category> getAll() {
+        return registry().all();
+    }
+
+    // Категория по имени и типу; null, если такой нет
+    public Category find(String name, String type) {
+        return registry().byNameAndType(name.trim(), type);
+    }
+
+    private static CategoryRegistry.State registry() {
+        return CategoryRegistry.get(CategoryDAO::loadAll);
+    }
+
+    // Категории из БД; null при ошибке чтения
+    private static List<Category> loadAll() {
         List<Category> categories = new ArrayList<>();
         String sql = "SELECT id, name, type FROM categories ORDER BY type, name";
 
@@ -32,6 +48,8 @@ public class CategoryDAO {
 
         } catch (SQLException e) {
             log.error("Ошибка загрузки категорий", e);
+            // null — загрузка не удалась: реестр не запомнит пустой список
+            return null;
         }
 
         return categories;
@@ -56,6 +74,7 @@ public class CategoryDAO {
                     cat.setName(name.trim());
                     cat.setType(type);
 
+                    CategoryRegistry.put(cat);
                     log.info("Добавлена категория: {} ({})", name, type);
                     return cat;
                 }
@@ -85,6 +104,7 @@ public class CategoryDAO {
             int affected = stmt.executeUpdate();
 
             if (affected > 0) {
+                CategoryRegistry.remove(id);
                 log.info("Удалена категория id={}", id);
                 return true;
             }
@@ -98,45 +118,38 @@ public class CategoryDAO {
 
     // 4. Проверить существование категории по имени
     public boolean exists(String name) {
-        String sql = "SELECT id FROM categories WHERE name = ?";
-
-        try (Connection conn = DataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, name.trim());
-            try (ResultSet rs = stmt.executeQuery()) {
-                return rs.next();
-            }
-
-        } catch (SQLException e) {
-            log.error("Ошибка проверки категории", e);
-        }
-
-        return false;
+        return registry().byName(name.trim()) != null;
     }
 
     // 5. Получить ID категории по имени
     public Long getIdByName(String name) {
-        String sql = "SELECT id FROM categories WHERE name = ?";
-
-        try (Connection conn = DataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        Category category = registry().byName(name.trim());
+        return category != null ? category.getId() : null;
+    }
 
-            stmt.setString(1, name.trim());
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getLong("id");
-                }
-            }
+    public Category getById(long id) {
+        Category cached = registry().byId(id);
+        return cached != null ? cached : loadById(id);
+    }
 
-        } catch (SQLException e) {
-            log.error("Ошибка получения ID категории", e);
+    // Общий экземпляр для строки запроса с JOIN categories (TransactionDAO):
+    // без отдельного объекта Category на каждую транзакцию
+    static Category shared(long id, String name, String type) {
+        Category cached = registry().byId(id);
+        if (cached != null && cached.getName().equals(name) && Objects.equals(cached.getType(), type)) {
+            return cached;
         }
-
-        return null;
+        // категория появилась в обход CategoryDAO — берём данные строки и запоминаем
+        Category cat = new Category();
+        cat.setId(id);
+        cat.setName(name);
+        cat.setType(type);
+        CategoryRegistry.put(cat);
+        return cat;
     }
 
-    public Category getById(long id) {
+    // Промах кэша: категория могла быть добавлена в обход CategoryDAO
+    private Category loadById(long id) {
         String sql = "SELECT id, name, type FROM categories WHERE id = ?";
         try (Connection conn = DataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -147,6 +160,7 @@ public class CategoryDAO {
                     cat.setId(rs.getLong("id"));
                     cat.setName(rs.getString("name"));
                     cat.setType(rs.getString("type"));
+                    CategoryRegistry.put(cat);
                     return cat;
                 }
             }
@@ -0,0 +1,111 @@
+package org.example.financetracker.db;
+
+import org.example.financetracker.model.Category;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Кэш категорий в памяти: индексы по id и по (имя, тип), один общий объект Category на id.
+// Категорий немного и меняются они редко, поэтому изменение копирует состояние целиком,
+// а чтение идёт без блокировок. Записи проходят через CategoryDAO (write-through).
+final class CategoryRegistry {
+    private static final Comparator<Category> ORDER =
+            Comparator.comparing(Category::getType, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(Category::getName, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private static volatile State state;
+
+    private CategoryRegistry() {
+    }
+
+    // Текущее состояние; при первом обращении (или после invalidate) загружается через loader.
+    // Неудачная загрузка (loader вернул null) не кэшируется: пустой список отдаётся один раз,
+    // следующее обращение снова идёт в БД.
+    static State get(Supplier<List<Category>> loader) {
+        State current = state;
+        if (current == null) {
+            synchronized (CategoryRegistry.class) {
+                current = state;
+                if (current == null) {
+                    List<Category> loaded = loader.get();
+                    if (loaded == null) {
+                        return new State(List.of());
+                    }
+                    current = new State(loaded);
+                    state = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    static synchronized void put(Category category) {
+        State current = state;
+        if (current == null) {
+            // ещё не загружен — категория попадёт в кэш при первой загрузке
+            return;
+        }
+        List<Category> all = new ArrayList<>(current.all);
+        all.removeIf(c -> c.getId().equals(category.getId()));
+        all.add(category);
+        state = new State(all);
+    }
+
+    static synchronized void remove(long id) {
+        State current = state;
+        if (current != null) {
+            List<Category> all = new ArrayList<>(current.all);
+            all.removeIf(c -> c.getId() == id);
+            state = new State(all);
+        }
+    }
+
+    // Сбросить кэш: другая БД, миграции или изменения в обход CategoryDAO
+    static synchronized void invalidate() {
+        state = null;
+    }
+
+    // Неизменяемый снимок категорий с индексами
+    static final class State {
+        private final List<Category> all;
+        private final Map<Long, Category> byId = new HashMap<>();
+        private final Map<NameType, Category> byNameType = new HashMap<>();
+        private final Map<String, Category> byName = new HashMap<>();
+
+        private State(List<Category> categories) {
+            List<Category> sorted = new ArrayList<>(categories);
+            sorted.sort(ORDER);
+            this.all = Collections.unmodifiableList(sorted);
+            for (Category c : sorted) {
+                byId.put(c.getId(), c);
+                byNameType.put(new NameType(c.getName(), c.getType()), c);
+                // по одному имени — первая в порядке (type, name)
+                byName.putIfAbsent(c.getName(), c);
+            }
+        }
+
+        List<Category> all() {
+            return all;
+        }
+
+        Category byId(long id) {
+            return byId.get(id);
+        }
+
+        Category byNameAndType(String name, String type) {
+            return byNameType.get(new NameType(name, type));
+        }
+
+        Category byName(String name) {
+            return byName.get(name);
+        }
+    }
+
+    private record NameType(String name, String type) {
+    }
+}
@@ -0,0 +1,361 @@
+package org.example.financetracker.db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Ограниченный пул соединений с кэшем подготовленных запросов на каждом соединении.
+// DAO работают как раньше: try-with-resources, а close() возвращает соединение/запрос в пул.
+class ConnectionPool {
+    private static final Logger log = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final int statementCacheSize;
+
+    // LIFO: чаще отдаём "тёплое" соединение с заполненным кэшем запросов
+    private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+
+    // == СЧЁТЧИКИ ==
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder borrowWaitNanos = new LongAdder();
+    private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+
+    private volatile boolean closed;
+
+    ConnectionPool(String url, String user, String password,
+                   int maxSize, long borrowTimeoutMillis, int statementCacheSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Размер пула должен быть больше нуля: " + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        while (true) {
+            if (closed) {
+                throw new SQLException("Пул соединений закрыт");
+            }
+
+            PooledConnection pc = idle.pollFirst();
+            if (pc == null) {
+                pc = tryCreate();
+            }
+            if (pc == null) {
+                try {
+                    long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    pc = idle.pollFirst(Math.max(0, borrowTimeoutMillis - waited), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Ожидание соединения прервано", e);
+                }
+                if (pc == null) {
+                    throw new SQLException("Нет свободных соединений за " + borrowTimeoutMillis + " мс (размер пула " + maxSize + ")");
+                }
+            }
+
+            if (pc.physical.isClosed()) {
+                // соединение умерло, пока лежало в пуле — выбрасываем и пробуем снова
+                discard(pc);
+                continue;
+            }
+
+            long wait = System.nanoTime() - start;
+            borrowCount.increment();
+            borrowWaitNanos.add(wait);
+            maxBorrowWaitNanos.accumulateAndGet(wait, Math::max);
+            active.incrementAndGet();
+            return pc.lease();
+        }
+    }
+
+    private PooledConnection tryCreate() throws SQLException {
+        int current;
+        do {
+            current = total.get();
+            if (current >= maxSize) {
+                return null;
+            }
+        } while (!total.compareAndSet(current, current + 1));
+
+        try {
+            Connection physical = DriverManager.getConnection(url, user, password);
+            log.debug("Открыто соединение с БД ({} из {})", current + 1, maxSize);
+            return new PooledConnection(physical);
+        } catch (SQLException | RuntimeException e) {
+            total.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void release(PooledConnection pc) {
+        active.decrementAndGet();
+        try {
+            if (!pc.physical.isClosed() && !pc.physical.getAutoCommit()) {
+                // незавершённая транзакция не должна достаться следующему заёмщику
+                pc.physical.rollback();
+                pc.physical.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            log.warn("Не удалось сбросить состояние соединения, оно будет закрыто", e);
+            discard(pc);
+            return;
+        }
+
+        if (closed) {
+            discard(pc);
+        } else {
+            idle.offerFirst(pc);
+        }
+    }
+
+    private void discard(PooledConnection pc) {
+        total.decrementAndGet();
+        pc.closePhysical();
+    }
+
+    void close() {
+        closed = true;
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            discard(pc);
+        }
+        log.info("Пул соединений закрыт, активных соединений: {}", active.get());
+    }
+
+    PoolStats stats() {
+        return new PoolStats(
+                maxSize,
+                total.get(),
+                active.get(),
+                idle.size(),
+                borrowCount.sum(),
+                borrowWaitNanos.sum(),
+                maxBorrowWaitNanos.get(),
+                statementCacheHits.sum(),
+                statementCacheMisses.sum()
+        );
+    }
+
+    // Физическое соединение и его кэш запросов. Используется одним заёмщиком за раз.
+    private final class PooledConnection {
+        private final Connection physical;
+        private final Map<StatementKey, CachedStatement> statements;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<StatementKey, CachedStatement> eldest) {
+                    if (size() > statementCacheSize && !eldest.getValue().inUse) {
+                        eldest.getValue().closePhysical();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        private Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new LeasedConnection(this));
+        }
+
+        private PreparedStatement prepare(Connection owner, StatementKey key) throws SQLException {
+            if (statementCacheSize > 0) {
+                CachedStatement cached = statements.get(key);
+                if (cached != null && cached.physical.isClosed()) {
+                    statements.remove(key);
+                } else if (cached != null && !cached.inUse) {
+                    statementCacheHits.increment();
+                    return cached.checkout(owner);
+                }
+            }
+            statementCacheMisses.increment();
+
+            PreparedStatement physicalStmt = key.autoGeneratedKeys == null
+                    ? physical.prepareStatement(key.sql)
+                    : physical.prepareStatement(key.sql, key.autoGeneratedKeys);
+            if (statementCacheSize == 0 || statements.containsKey(key)) {
+                // тот же запрос уже открыт этим заёмщиком — отдаём некэшируемую копию
+                return physicalStmt;
+            }
+            CachedStatement cached = new CachedStatement(physicalStmt);
+            statements.put(key, cached);
+            return cached.checkout(owner);
+        }
+
+        private void closePhysical() {
+            for (Iterator<CachedStatement> it = statements.values().iterator(); it.hasNext(); ) {
+                it.next().closePhysical();
+                it.remove();
+            }
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                log.warn("Ошибка при закрытии соединения", e);
+            }
+        }
+    }
+
+    // Логическое соединение, выданное одному заёмщику; close() возвращает его в пул
+    private final class LeasedConnection implements InvocationHandler {
+        private final PooledConnection pc;
+        private boolean closed;
+
+        private LeasedConnection(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(pc);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || pc.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pc.physical + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Соединение уже возвращено в пул");
+            }
+
+            if ("prepareStatement".equals(name) && args.length == 1) {
+                return pc.prepare((Connection) proxy, new StatementKey((String) args[0], null));
+            }
+            if ("prepareStatement".equals(name) && args.length == 2 && args[1] instanceof Integer keys) {
+                return pc.prepare((Connection) proxy, new StatementKey((String) args[0], keys));
+            }
+            return delegate(pc.physical, method, args);
+        }
+    }
+
+    // Подготовленный запрос из кэша соединения
+    private static final class CachedStatement {
+        private final PreparedStatement physical;
+        private boolean inUse;
+
+        private CachedStatement(PreparedStatement physical) {
+            this.physical = physical;
+        }
+
+        private PreparedStatement checkout(Connection owner) {
+            inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new LeasedStatement(this, owner));
+        }
+
+        private void checkin() throws SQLException {
+            inUse = false;
+            physical.clearParameters();
+            physical.clearBatch();
+        }
+
+        private void closePhysical() {
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                log.warn("Ошибка при закрытии подготовленного запроса", e);
+            }
+        }
+    }
+
+    // Запрос, выданный одному заёмщику; close() очищает параметры вместо закрытия
+    private static final class LeasedStatement implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection owner;
+        private boolean closed;
+
+        private LeasedStatement(CachedStatement cached, Connection owner) {
+            this.cached = cached;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        cached.checkin();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || cached.physical.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Запрос уже закрыт");
+            }
+            return delegate(cached.physical, method, args);
+        }
+    }
+
+    private record StatementKey(String sql, Integer autoGeneratedKeys) {
+        private StatementKey {
+            Objects.requireNonNull(sql, "sql");
+        }
+    }
+
+    private static Object delegate(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -1,14 +1,23 @@
 package org.example.financetracker.db;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
+// Единая точка получения соединений: все DAO берут их из общего пула
 public class DataSource {
-    private static final String URL = "jdbc:h2:./finance_tracker;DB_CLOSE_ON_EXIT=FALSE;USER=sa;PASSWORD=";
-    private static final String USER = "";
+    private static final String URL = "jdbc:h2:./finance_tracker;DB_CLOSE_ON_EXIT=FALSE";
+    // другой файл БД (бенчмарки, отдельные копии данных) — через -Dfinancetracker.db.url=...
+    private static final String URL_PROPERTY = "financetracker.db.url";
+    private static final String USER = "sa";
     private static final String PASSWORD = "";
 
+    // == НАСТРОЙКИ ПУЛА ==
+    private static final int POOL_SIZE = Integer.getInteger("financetracker.db.poolSize", 4);
+    private static final long BORROW_TIMEOUT_MS = Long.getLong("financetracker.db.borrowTimeoutMs", 5000L);
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("financetracker.db.statementCacheSize", 32);
+
+    private static volatile ConnectionPool pool;
+
     static {
         try {
             Class.forName("org.h2.Driver");
@@ -17,11 +26,43 @@ public class DataSource {
         }
     }
 
+    // Адрес БД, с которым будет открыт пул
+    public static String url() {
+        return System.getProperty(URL_PROPERTY, URL);
+    }
+
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(
-                "jdbc:h2:./finance_tracker;DB_CLOSE_ON_EXIT=FALSE",
-                "sa",
-                ""
-        );
+        return pool().borrow();
+    }
+
+    // Текущие счётчики: ожидание соединения, активные/свободные, попадания в кэш запросов
+    public static PoolStats getPoolStats() {
+        return pool().stats();
+    }
+
+    // Закрывает все свободные соединения; занятые закроются при возврате в пул.
+    // Следующий getConnection() создаст новый пул (с текущим значением financetracker.db.url).
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+        // кэш категорий относится к закрытой БД
+        CategoryRegistry.invalidate();
+    }
+
+    private static ConnectionPool pool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DataSource.class) {
+                current = pool;
+                if (current == null) {
+                    current = new ConnectionPool(url(), USER, PASSWORD,
+                            POOL_SIZE, BORROW_TIMEOUT_MS, STATEMENT_CACHE_SIZE);
+                    pool = current;
+                }
+            }
+        }
+        return current;
     }
 }
@@ -7,23 +7,12 @@ import java.sql.*;
 
 public class DatabaseManager {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseManager.class);
-    private static final String DB_URL = "jdbc:h2:./finance_tracker;DB_CLOSE_ON_EXIT=FALSE";
-    private static final String DB_USER = "sa";
-    private static final String DB_PASSWORD = "";
-
-    static {
-        try {
-            Class.forName("org.h2.Driver");
-        } catch (ClassNotFoundException e) {
-            logger.error("H2 Driver not found", e);
-            throw new RuntimeException("Failed to load H2 Driver", e);
-        }
-    }
 
     public static void initializeDatabase() throws SQLException {
-        try (Connection connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD)) {
-            createTables(connection);
-            initDefaultCategories(connection);
+        try (Connection connection = DataSource.getConnection()) {
+            SchemaMigrator.migrate(connection);
+            // миграции могли изменить категории — кэш перечитается при первом обращении
+            CategoryRegistry.invalidate();
             logger.info("Database initialized successfully!");
         } catch (SQLException e) {
             logger.error("Failed to initialize database", e);
@@ -31,6 +20,12 @@ public class DatabaseManager {
         }
     }
 
+    // Миграция 1: исходная схема (IF NOT EXISTS — подходит и для БД, созданных до появления миграций)
+    static void createBaseline(Connection connection) throws SQLException {
+        createTables(connection);
+        initDefaultCategories(connection);
+    }
+
     private static void createTables(Connection connection) throws SQLException {
         // == TRANSACTIONS ==
         String createTransactions = """
@@ -72,11 +67,21 @@ public class DatabaseManager {
             );
             """;
 
+        // == IMPORT_CHECKPOINTS == (сколько строк файла выписки уже импортировано)
+        String createImportCheckpoints = """
+            CREATE TABLE IF NOT EXISTS IMPORT_CHECKPOINTS (
+                source VARCHAR(600) PRIMARY KEY,
+                rows_done BIGINT NOT NULL,
+                updated_at TIMESTAMP NOT NULL
+            )
+            """;
+
         try (Statement stmt = connection.createStatement()) {
             stmt.execute(createTransactions);
             stmt.execute(createCategories);
             stmt.execute(createExchangeRates);
             stmt.execute(createSettings);
+            stmt.execute(createImportCheckpoints);
         } catch (SQLException e) {
             throw new RuntimeException("Failed to initialize database", e);
         }
@@ -110,8 +115,8 @@ public class DatabaseManager {
         }
     }
 
-    // Утилита для получения соединения в DAO
+    // Утилита для получения соединения в DAO (из общего пула DataSource)
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+        return DataSource.getConnection();
     }
 }
\ No newline at end of file
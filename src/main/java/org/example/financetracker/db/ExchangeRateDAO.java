@@ -1,33 +1,39 @@
 package org.example.financetracker.db;
 
 import org.example.financetracker.model.ExchangeRate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 public class ExchangeRateDAO {
-    private final Connection connection;
-
-    public ExchangeRateDAO(Connection connection) {
-        this.connection = connection;
-    }
+    private static final Logger log = LoggerFactory.getLogger(ExchangeRateDAO.class);
 
     public ExchangeRate getRate(String from, String to) {
         String sql = "SELECT from_currency, to_currency, rate, last_updated FROM exchange_rates WHERE from_currency = ? AND to_currency = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection conn = DataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, from);
             stmt.setString(2, to);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                ExchangeRate rate = new ExchangeRate();
-                rate.setFrom_currency(rs.getString("from_currency"));
-                rate.setTo_currency(rs.getString("to_currency"));
-                rate.setRate(rs.getBigDecimal("rate"));
-                rate.setLast_updated(rs.getTimestamp("last_updated").toLocalDateTime());
-                return rate;
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    ExchangeRate rate = new ExchangeRate();
+                    rate.setFrom_currency(rs.getString("from_currency"));
+                    rate.setTo_currency(rs.getString("to_currency"));
+                    rate.setRate(rs.getBigDecimal("rate"));
+                    rate.setLast_updated(rs.getTimestamp("last_updated").toLocalDateTime());
+                    return rate;
+                }
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            log.error("Ошибка чтения курса {} → {}", from, to, e);
         }
         return null;
     }
@@ -38,14 +44,137 @@ public class ExchangeRateDAO {
             KEY (from_currency, to_currency)
             VALUES (?, ?, ?, ?)
             """;
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection conn = DataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, from);
             stmt.setString(2, to);
             stmt.setBigDecimal(3, rate);
             stmt.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
             stmt.executeUpdate();
         } catch (SQLException e) {
-            e.printStackTrace();
+            log.error("Ошибка сохранения курса {} → {}", from, to, e);
+        }
+    }
+
+    // Все сохранённые курсы к рублю (X → RUB) — для восстановления снимка при запуске
+    public List<ExchangeRate> getAllToRub() {
+        List<ExchangeRate> rates = new ArrayList<>();
+        String sql = "SELECT from_currency, to_currency, rate, last_updated FROM exchange_rates WHERE to_currency = 'RUB'";
+        try (Connection conn = DataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                ExchangeRate rate = new ExchangeRate();
+                rate.setFrom_currency(rs.getString("from_currency"));
+                rate.setTo_currency(rs.getString("to_currency"));
+                rate.setRate(rs.getBigDecimal("rate"));
+                rate.setLast_updated(rs.getTimestamp("last_updated").toLocalDateTime());
+                rates.add(rate);
+            }
+        } catch (SQLException e) {
+            log.error("Ошибка чтения сохранённых курсов", e);
+        }
+        return rates;
+    }
+
+    // Сохранить курсы X → RUB и обратные RUB → X одной транзакцией
+    public void saveRubRates(Map<String, BigDecimal> rubRates, LocalDateTime updatedAt) {
+        String sql = """
+            MERGE INTO exchange_rates (from_currency, to_currency, rate, last_updated)
+            KEY (from_currency, to_currency)
+            VALUES (?, ?, ?, ?)
+            """;
+        try (Connection conn = DataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                Timestamp ts = Timestamp.valueOf(updatedAt);
+                for (Map.Entry<String, BigDecimal> e : rubRates.entrySet()) {
+                    String currency = e.getKey();
+                    BigDecimal rate = e.getValue();
+                    if ("RUB".equals(currency) || rate.signum() <= 0) {
+                        continue;
+                    }
+                    stmt.setString(1, currency);
+                    stmt.setString(2, "RUB");
+                    stmt.setBigDecimal(3, rate);
+                    stmt.setTimestamp(4, ts);
+                    stmt.addBatch();
+
+                    stmt.setString(1, "RUB");
+                    stmt.setString(2, currency);
+                    stmt.setBigDecimal(3, BigDecimal.ONE.divide(rate, 6, RoundingMode.HALF_UP));
+                    stmt.setTimestamp(4, ts);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            log.error("Ошибка сохранения курсов", e);
+        }
+    }
+
+    // Курс к рублю на дату (в миллионных) — для загрузки истории без BigDecimal на каждую строку
+    public interface HistoryVisitor {
+        void visit(String currency, int epochDay, long rateMicros);
+    }
+
+    // История курсов X → RUB по дням: курсы на несколько дат одной транзакцией (повторная дата заменяется).
+    // Возвращает число записанных курсов.
+    public int saveHistory(Map<LocalDate, Map<String, BigDecimal>> rubRatesByDate) {
+        String sql = """
+            MERGE INTO exchange_rate_history (currency, rate_date, rate)
+            KEY (currency, rate_date)
+            VALUES (?, ?, ?)
+            """;
+        int saved = 0;
+        try (Connection conn = DataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (Map.Entry<LocalDate, Map<String, BigDecimal>> day : rubRatesByDate.entrySet()) {
+                    Date date = Date.valueOf(day.getKey());
+                    for (Map.Entry<String, BigDecimal> e : day.getValue().entrySet()) {
+                        if ("RUB".equals(e.getKey()) || e.getValue().signum() <= 0) {
+                            continue;
+                        }
+                        stmt.setString(1, e.getKey());
+                        stmt.setDate(2, date);
+                        stmt.setBigDecimal(3, e.getValue().setScale(6, RoundingMode.HALF_UP));
+                        stmt.addBatch();
+                        saved++;
+                    }
+                }
+                stmt.executeBatch();
+                conn.commit();
+            }
+            return saved;
+        } catch (SQLException e) {
+            log.error("Ошибка сохранения истории курсов", e);
+            throw new RuntimeException("Failed to save rate history", e);
+        }
+    }
+
+    // Вся история курсов к рублю
+    public int loadHistory(HistoryVisitor visitor) {
+        String sql = "SELECT currency, rate_date, rate FROM exchange_rate_history";
+        int rows = 0;
+        try (Connection conn = DataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setFetchSize(10_000);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    visitor.visit(rs.getString(1), (int) rs.getObject(2, LocalDate.class).toEpochDay(),
+                            rs.getBigDecimal(3).setScale(6, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+                    rows++;
+                }
+            }
+        } catch (SQLException e) {
+            log.error("Ошибка чтения истории курсов", e);
+            throw new RuntimeException("Failed to load rate history", e);
         }
+        return rows;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,44 @@
+package org.example.financetracker.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+// Контрольные точки импорта. Пишутся в той же транзакции, что и строки выписки,
+// поэтому после сбоя импорт продолжается ровно с первой незакоммиченной строки.
+public class ImportCheckpointDAO {
+
+    public long getRowsDone(Connection conn, String source) throws SQLException {
+        String sql = "SELECT rows_done FROM import_checkpoints WHERE source = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, source);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    public void save(Connection conn, String source, long rowsDone) throws SQLException {
+        String sql = """
+            MERGE INTO import_checkpoints (source, rows_done, updated_at)
+            KEY (source)
+            VALUES (?, ?, ?)
+            """;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, source);
+            stmt.setLong(2, rowsDone);
+            stmt.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+            stmt.executeUpdate();
+        }
+    }
+
+    public void clear(Connection conn, String source) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM import_checkpoints WHERE source = ?")) {
+            stmt.setString(1, source);
+            stmt.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package org.example.financetracker.db;
+
+import org.example.financetracker.model.CurrencyTotal;
+import org.example.financetracker.model.MonthlySummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Итоги по (месяц, категория, валюта): сумма и число операций.
+// Таблица меняется в той же транзакции БД, что и строки TRANSACTIONS (см. TransactionDAO),
+// поэтому баланс и отчёты читают сотни строк итогов вместо всей истории.
+// Месяц хранится как год * 100 + месяц, "без категории" — category_id = 0.
+public class MonthlySummaryDAO {
+    private static final Logger log = LoggerFactory.getLogger(MonthlySummaryDAO.class);
+
+    // Заполнение по всей истории (миграция и rebuild)
+    static final String FILL_SQL = """
+        INSERT INTO monthly_summary (ym, category_id, currency, total, tx_count)
+        SELECT YEAR(transaction_date) * 100 + MONTH(transaction_date), COALESCE(category_id, 0), currency,
+               SUM(amount), COUNT(*)
+        FROM transactions
+        GROUP BY YEAR(transaction_date) * 100 + MONTH(transaction_date), COALESCE(category_id, 0), currency
+        """;
+
+    // Прибавляет (sign = 1) или вычитает (sign = -1) строки TRANSACTIONS с указанными id.
+    // Значения берутся из самой таблицы, поэтому вызывается после INSERT/UPDATE (+1) и перед UPDATE/DELETE (-1).
+    private static final String APPLY_SQL = """
+        MERGE INTO monthly_summary s
+        USING (
+            SELECT YEAR(transaction_date) * 100 + MONTH(transaction_date) AS ym,
+                   COALESCE(category_id, 0) AS category_id, currency,
+                   SUM(amount) * ? AS total, COUNT(*) * ? AS tx_count
+            FROM transactions
+            WHERE id = ANY(?)
+            GROUP BY YEAR(transaction_date) * 100 + MONTH(transaction_date), COALESCE(category_id, 0), currency
+        ) v
+        ON s.ym = v.ym AND s.category_id = v.category_id AND s.currency = v.currency
+        WHEN MATCHED THEN UPDATE SET total = s.total + v.total, tx_count = s.tx_count + v.tx_count
+        WHEN NOT MATCHED THEN INSERT (ym, category_id, currency, total, tx_count)
+            VALUES (v.ym, v.category_id, v.currency, v.total, v.tx_count)
+        """;
+
+    // == ИЗМЕНЕНИЕ (в транзакции вызывающего) ==
+    void add(Connection conn, Collection<Long> transactionIds) throws SQLException {
+        apply(conn, transactionIds, 1);
+    }
+
+    void subtract(Connection conn, Collection<Long> transactionIds) throws SQLException {
+        if (apply(conn, transactionIds, -1)) {
+            // ячейки, в которых не осталось операций, не храним
+            try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM monthly_summary WHERE tx_count = 0")) {
+                stmt.executeUpdate();
+            }
+        }
+    }
+
+    void clear(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM monthly_summary")) {
+            stmt.executeUpdate();
+        }
+    }
+
+    private boolean apply(Connection conn, Collection<Long> transactionIds, int sign) throws SQLException {
+        if (transactionIds.isEmpty()) {
+            return false;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(APPLY_SQL)) {
+            stmt.setInt(1, sign);
+            stmt.setInt(2, sign);
+            stmt.setArray(3, conn.createArrayOf("BIGINT", transactionIds.toArray()));
+            return stmt.executeUpdate() > 0;
+        }
+    }
+
+    // Пересчёт итогов по всей истории — на случай расхождения (ручная правка БД, сбой старой версии).
+    // Возвращает число строк итогов.
+    public int rebuild() {
+        try (Connection conn = DataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            int rows;
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DELETE FROM monthly_summary");
+                rows = stmt.executeUpdate(FILL_SQL);
+            }
+            conn.commit();
+            log.info("Итоги по месяцам пересчитаны: {} строк", rows);
+            return rows;
+        } catch (SQLException e) {
+            log.error("Ошибка при пересчёте итогов по месяцам", e);
+            throw new RuntimeException("Failed to rebuild monthly summary", e);
+        }
+    }
+
+    // == ЧТЕНИЕ ==
+    // Итоги за месяцы [from, to]
+    public List<MonthlySummary> findRange(YearMonth from, YearMonth to) {
+        List<MonthlySummary> result = new ArrayList<>();
+        String sql = """
+            SELECT ym, category_id, currency, total, tx_count
+            FROM monthly_summary
+            WHERE ym BETWEEN ? AND ?
+            ORDER BY ym, category_id, currency
+            """;
+
+        try (Connection conn = DataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, from.getYear() * 100 + from.getMonthValue());
+            stmt.setInt(2, to.getYear() * 100 + to.getMonthValue());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int ym = rs.getInt("ym");
+                    long categoryId = rs.getLong("category_id");
+                    result.add(new MonthlySummary(YearMonth.of(ym / 100, ym % 100),
+                            categoryId > 0 ? categoryId : null, rs.getString("currency"),
+                            rs.getBigDecimal("total"), rs.getLong("tx_count")));
+                }
+            }
+        } catch (SQLException e) {
+            log.error("Ошибка при чтении итогов по месяцам", e);
+            throw new RuntimeException("Failed to load monthly summary", e);
+        }
+        return result;
+    }
+
+    // Суммы по валюте и типу категории за всё время (тип NULL — без категории)
+    public List<CurrencyTotal> sumByCurrencyAndType() {
+        List<CurrencyTotal> totals = new ArrayList<>();
+        String sql = """
+            SELECT s.currency, c.type AS category_type, SUM(s.total) AS total
+            FROM monthly_summary s
+            LEFT JOIN categories c ON s.category_id = c.id
+            GROUP BY s.currency, c.type
+            """;
+
+        try (Connection conn = DataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                totals.add(new CurrencyTotal(
+                        rs.getString("currency"),
+                        rs.getString("category_type"),
+                        rs.getBigDecimal("total")));
+            }
+        } catch (SQLException e) {
+            log.error("Ошибка при подсчёте сумм по итогам", e);
+            throw new RuntimeException("Failed to aggregate monthly summary", e);
+        }
+        return totals;
+    }
+}
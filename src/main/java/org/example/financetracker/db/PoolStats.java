@@ -0,0 +1,59 @@
+package org.example.financetracker.db;
+
+import java.util.concurrent.TimeUnit;
+
+// Снимок счётчиков пула соединений на момент вызова DataSource.getPoolStats()
+public class PoolStats {
+    private final int maxSize;
+    private final int totalConnections;
+    private final int activeConnections;
+    private final int idleConnections;
+    private final long borrowCount;
+    private final long borrowWaitNanos;
+    private final long maxBorrowWaitNanos;
+    private final long statementCacheHits;
+    private final long statementCacheMisses;
+
+    PoolStats(int maxSize, int totalConnections, int activeConnections, int idleConnections,
+              long borrowCount, long borrowWaitNanos, long maxBorrowWaitNanos,
+              long statementCacheHits, long statementCacheMisses) {
+        this.maxSize = maxSize;
+        this.totalConnections = totalConnections;
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.borrowCount = borrowCount;
+        this.borrowWaitNanos = borrowWaitNanos;
+        this.maxBorrowWaitNanos = maxBorrowWaitNanos;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+    }
+
+    // == ГЕТТЕРЫ ==
+    public int getMaxSize() {return maxSize;}
+    public int getTotalConnections() {return totalConnections;}
+    public int getActiveConnections() {return activeConnections;}
+    public int getIdleConnections() {return idleConnections;}
+    public long getBorrowCount() {return borrowCount;}
+    public long getStatementCacheHits() {return statementCacheHits;}
+    public long getStatementCacheMisses() {return statementCacheMisses;}
+
+    public double getAverageBorrowWaitMillis() {
+        return borrowCount == 0 ? 0.0 : (double) borrowWaitNanos / borrowCount / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double getMaxBorrowWaitMillis() {
+        return (double) maxBorrowWaitNanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double getStatementCacheHitRate() {
+        long lookups = statementCacheHits + statementCacheMisses;
+        return lookups == 0 ? 0.0 : (double) statementCacheHits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PoolStats{active=%d, idle=%d, total=%d/%d, borrows=%d, avgWait=%.3f ms, maxWait=%.3f ms, stmtCacheHitRate=%.1f%%}",
+                activeConnections, idleConnections, totalConnections, maxSize, borrowCount,
+                getAverageBorrowWaitMillis(), getMaxBorrowWaitMillis(), getStatementCacheHitRate() * 100);
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.financetracker.db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Версионированные миграции схемы. Применённая версия хранится в SCHEMA_VERSION;
+// если схема актуальна, запуск стоит один SELECT и не выполняет ни одного DDL.
+// Новая миграция добавляется в конец списка MIGRATIONS со следующим номером.
+class SchemaMigrator {
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    interface Migration {
+        void apply(Connection connection) throws SQLException;
+    }
+
+    private record Step(int version, String description, Migration migration) {}
+
+    private static final List<Step> MIGRATIONS = List.of(
+            new Step(1, "Базовые таблицы и категории по умолчанию", DatabaseManager::createBaseline),
+            new Step(2, "Индексы для сортировки по дате и поиска по категории", sql(
+                    // findAll/findPage: ORDER BY transaction_date DESC, id DESC
+                    "CREATE INDEX IF NOT EXISTS idx_transactions_date_id ON transactions (transaction_date DESC, id DESC)",
+                    // CategoryDAO.isUsed и группировка по категории/валюте без чтения строк таблицы
+                    "CREATE INDEX IF NOT EXISTS idx_transactions_category ON transactions (category_id, currency, amount)"
+            )),
+            new Step(3, "Внешний ключ transactions.category_id → categories.id", sql(
+                    // ссылки на удалённые категории (и 0 от старых версий) превращаем в "без категории"
+                    "UPDATE transactions SET category_id = NULL WHERE category_id IS NOT NULL "
+                            + "AND category_id NOT IN (SELECT id FROM categories)",
+                    "ALTER TABLE transactions ADD CONSTRAINT IF NOT EXISTS fk_transactions_category "
+                            + "FOREIGN KEY (category_id) REFERENCES categories (id)"
+            )),
+            new Step(4, "Итоги по месяцам, категориям и валютам (MONTHLY_SUMMARY)", sql(
+                    """
+                    CREATE TABLE IF NOT EXISTS MONTHLY_SUMMARY (
+                        ym INT NOT NULL,
+                        category_id BIGINT NOT NULL,
+                        currency VARCHAR(3) NOT NULL,
+                        total DECIMAL(19, 2) NOT NULL,
+                        tx_count BIGINT NOT NULL,
+                        PRIMARY KEY (ym, category_id, currency)
+                    )
+                    """,
+                    "DELETE FROM monthly_summary",
+                    MonthlySummaryDAO.FILL_SQL
+            )),
+            new Step(5, "История курсов ЦБ по дням (EXCHANGE_RATE_HISTORY)", sql(
+                    """
+                    CREATE TABLE IF NOT EXISTS EXCHANGE_RATE_HISTORY (
+                        currency VARCHAR(3) NOT NULL,
+                        rate_date DATE NOT NULL,
+                        rate DECIMAL(18, 6) NOT NULL,
+                        PRIMARY KEY (currency, rate_date)
+                    )
+                    """,
+                    // последние сохранённые курсы — первая точка истории
+                    "MERGE INTO exchange_rate_history (currency, rate_date, rate) KEY (currency, rate_date) "
+                            + "SELECT from_currency, CAST(last_updated AS DATE), rate FROM exchange_rates "
+                            + "WHERE to_currency = 'RUB'"
+            ))
+    );
+
+    static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version();
+    }
+
+    static void migrate(Connection connection) throws SQLException {
+        int current = currentVersion(connection);
+        if (current >= latestVersion()) {
+            log.debug("Схема БД актуальна (версия {})", current);
+            return;
+        }
+
+        if (current == 0) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS SCHEMA_VERSION (
+                        version INT PRIMARY KEY,
+                        description VARCHAR(200) NOT NULL,
+                        applied_at TIMESTAMP NOT NULL
+                    )
+                    """);
+            }
+        }
+
+        for (Step step : MIGRATIONS) {
+            if (step.version() <= current) {
+                continue;
+            }
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                step.migration().apply(connection);
+                try (PreparedStatement stmt = connection.prepareStatement(
+                        "INSERT INTO schema_version (version, description, applied_at) VALUES (?, ?, ?)")) {
+                    stmt.setInt(1, step.version());
+                    stmt.setString(2, step.description());
+                    stmt.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+                    stmt.executeUpdate();
+                }
+                connection.commit();
+                log.info("Применена миграция {}: {}", step.version(), step.description());
+            } catch (SQLException e) {
+                connection.rollback();
+                throw new SQLException("Миграция " + step.version() + " не применена: " + step.description(), e);
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    // 0 — таблицы версий ещё нет (новая БД или БД до появления миграций)
+    private static int currentVersion(Connection connection) throws SQLException {
+        String exists = "SELECT COUNT(*) FROM information_schema.tables WHERE table_name = 'SCHEMA_VERSION'";
+        try (PreparedStatement stmt = connection.prepareStatement(exists);
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            if (rs.getInt(1) == 0) {
+                return 0;
+            }
+        }
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT COALESCE(MAX(version), 0) FROM schema_version");
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static Migration sql(String... statements) {
+        return connection -> {
+            try (Statement stmt = connection.createStatement()) {
+                for (String sql : statements) {
+                    stmt.execute(sql);
+                }
+            }
+        };
+    }
+}
@@ -2,37 +2,52 @@ package org.example.financetracker.db;
 
 import org.example.financetracker.model.Category;
 import org.example.financetracker.model.Transaction;
+import org.example.financetracker.model.TransactionKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.math.RoundingMode;
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 
 public class TransactionDAO {
     private static final Logger log = LoggerFactory.getLogger(TransactionDAO.class);
 
+    // итоги по месяцам меняются в той же транзакции БД, что и строки
+    private final MonthlySummaryDAO summaryDAO = new MonthlySummaryDAO();
+
     public void add(Transaction t) {
         String sql = "INSERT INTO transactions (title, amount, currency, transaction_date, category_id) " +
                 "VALUES (?, ?, ?, ?, ?)";
 
-        try (Connection conn = DataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-
-            stmt.setString(1, t.getTitle());
-            stmt.setBigDecimal(2, t.getAmount());
-            stmt.setString(3, t.getCurrency());
-            stmt.setDate(4, Date.valueOf(t.getTransaction_date()));
-            stmt.setLong(5, t.getCategory_id());
+        try (Connection conn = DataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setString(1, t.getTitle());
+                stmt.setBigDecimal(2, t.getAmount());
+                stmt.setString(3, t.getCurrency());
+                stmt.setDate(4, Date.valueOf(t.getTransaction_date()));
+                if (t.getCategory_id() != null) {
+                    stmt.setLong(5, t.getCategory_id());
+                } else {
+                    stmt.setNull(5, Types.BIGINT);
+                }
 
-            stmt.executeUpdate();
+                stmt.executeUpdate();
 
-            // Получаем сгенерированный id
-            try (ResultSet rs = stmt.getGeneratedKeys()) {
-                if (rs.next()) {
-                    t.setId(rs.getLong(1));
+                // Получаем сгенерированный id
+                try (ResultSet rs = stmt.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        t.setId(rs.getLong(1));
+                    }
                 }
             }
+            summaryDAO.add(conn, List.of(t.getId()));
+            conn.commit();
 
             log.info("Добавлена транзакция: {} {} {}", t.getAmount(), t.getCurrency(), t.getTitle());
 
@@ -42,13 +57,206 @@ public class TransactionDAO {
         }
     }
 
-    // 2. Удаление по id
+    // 1. Пакетная вставка в транзакции вызывающего (импорт): без автокоммита и построчного лога.
+    // Сгенерированные id проставляются в переданные объекты, итоги по месяцам обновляются в той же транзакции.
+    public void addBatch(Connection conn, List<Transaction> batch) throws SQLException {
+        String sql = "INSERT INTO transactions (title, amount, currency, transaction_date, category_id) " +
+                "VALUES (?, ?, ?, ?, ?)";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (Transaction t : batch) {
+                stmt.setString(1, t.getTitle());
+                stmt.setBigDecimal(2, t.getAmount());
+                stmt.setString(3, t.getCurrency());
+                stmt.setDate(4, Date.valueOf(t.getTransaction_date()));
+                if (t.getCategory_id() != null) {
+                    stmt.setLong(5, t.getCategory_id());
+                } else {
+                    stmt.setNull(5, Types.BIGINT);
+                }
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            List<Long> ids = new ArrayList<>(batch.size());
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                for (int i = 0; i < batch.size() && keys.next(); i++) {
+                    batch.get(i).setId(keys.getLong(1));
+                    ids.add(keys.getLong(1));
+                }
+            }
+            summaryDAO.add(conn, ids);
+        }
+    }
+
+    // 2. Пакетная вставка в собственной транзакции БД (массовое добавление через локальный API)
+    public void addAll(List<Transaction> batch) {
+        try (Connection conn = DataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                addBatch(conn, batch);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+            log.info("Добавлено транзакций пакетом: {}", batch.size());
+        } catch (SQLException e) {
+            log.error("Ошибка при пакетном добавлении транзакций", e);
+            throw new RuntimeException("Failed to add transactions", e);
+        }
+    }
+
+    // 3. Изменение на месте: один UPDATE только по изменившимся столбцам, id сохраняется.
+    // Возвращает false, если менять нечего или строки уже нет.
+    public boolean update(Transaction before, Transaction after) {
+        List<String> columns = new ArrayList<>(5);
+        List<Object> values = new ArrayList<>(5);
+        if (!Objects.equals(before.getTitle(), after.getTitle())) {
+            columns.add("title = ?");
+            values.add(after.getTitle());
+        }
+        if (before.getAmount() == null || before.getAmount().compareTo(after.getAmount()) != 0) {
+            columns.add("amount = ?");
+            values.add(after.getAmount());
+        }
+        if (!Objects.equals(before.getCurrency(), after.getCurrency())) {
+            columns.add("currency = ?");
+            values.add(after.getCurrency());
+        }
+        if (!Objects.equals(before.getTransaction_date(), after.getTransaction_date())) {
+            columns.add("transaction_date = ?");
+            values.add(Date.valueOf(after.getTransaction_date()));
+        }
+        if (!Objects.equals(before.getCategory_id(), after.getCategory_id())) {
+            columns.add("category_id = ?");
+            values.add(after.getCategory_id());
+        }
+        if (columns.isEmpty()) {
+            return false;
+        }
+
+        String sql = "UPDATE transactions SET " + String.join(", ", columns) + " WHERE id = ?";
+        // смена одного названия итоги не затрагивает
+        boolean affectsSummary = columns.size() > 1 || !columns.get(0).startsWith("title");
+        List<Long> ids = List.of(after.getId());
+        try (Connection conn = DataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            if (affectsSummary) {
+                summaryDAO.subtract(conn, ids);
+            }
+            boolean updated;
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int i = 1;
+                for (Object value : values) {
+                    if (value == null) {
+                        stmt.setNull(i++, Types.BIGINT);
+                    } else {
+                        stmt.setObject(i++, value);
+                    }
+                }
+                stmt.setLong(i, after.getId());
+                updated = stmt.executeUpdate() > 0;
+            }
+            if (affectsSummary) {
+                summaryDAO.add(conn, ids);
+            }
+            conn.commit();
+            log.info("Изменена транзакция id={}: {}", after.getId(), columns);
+            return updated;
+        } catch (SQLException e) {
+            log.error("Ошибка при изменении транзакции id={}", after.getId(), e);
+            throw new RuntimeException("Failed to update transaction", e);
+        }
+    }
+
+    // 4. Пакетное изменение нескольких строк целиком в одной транзакции
+    public void updateBatch(List<Transaction> transactions) {
+        String sql = "UPDATE transactions SET title = ?, amount = ?, currency = ?, transaction_date = ?, category_id = ? " +
+                "WHERE id = ?";
+
+        List<Long> ids = transactions.stream().map(Transaction::getId).toList();
+        try (Connection conn = DataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            summaryDAO.subtract(conn, ids);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (Transaction t : transactions) {
+                    stmt.setString(1, t.getTitle());
+                    stmt.setBigDecimal(2, t.getAmount());
+                    stmt.setString(3, t.getCurrency());
+                    stmt.setDate(4, Date.valueOf(t.getTransaction_date()));
+                    if (t.getCategory_id() != null) {
+                        stmt.setLong(5, t.getCategory_id());
+                    } else {
+                        stmt.setNull(5, Types.BIGINT);
+                    }
+                    stmt.setLong(6, t.getId());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+            summaryDAO.add(conn, ids);
+            conn.commit();
+            log.info("Изменено транзакций: {}", transactions.size());
+        } catch (SQLException e) {
+            log.error("Ошибка при пакетном изменении транзакций", e);
+            throw new RuntimeException("Failed to update transactions", e);
+        }
+    }
+
+    // 5. Перенос нескольких транзакций в другую категорию одним запросом
+    public int updateCategory(Collection<Long> ids, Long categoryId) {
+        String sql = "UPDATE transactions SET category_id = ? WHERE id = ANY(?)";
+
+        try (Connection conn = DataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            summaryDAO.subtract(conn, ids);
+            int affected;
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                if (categoryId != null) {
+                    stmt.setLong(1, categoryId);
+                } else {
+                    stmt.setNull(1, Types.BIGINT);
+                }
+                stmt.setArray(2, conn.createArrayOf("BIGINT", ids.toArray()));
+                affected = stmt.executeUpdate();
+            }
+            summaryDAO.add(conn, ids);
+            conn.commit();
+            log.info("Перенесено в категорию id={}: {} транзакций", categoryId, affected);
+            return affected;
+        } catch (SQLException e) {
+            log.error("Ошибка при смене категории транзакций", e);
+            throw new RuntimeException("Failed to recategorize transactions", e);
+        }
+    }
+
+    // 6. Очистка истории вместе с итогами по месяцам
+    public void deleteAll() {
+        try (Connection conn = DataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DELETE FROM transactions");
+            }
+            summaryDAO.clear(conn);
+            conn.commit();
+            log.info("Все транзакции удалены");
+        } catch (SQLException e) {
+            log.error("Ошибка при очистке транзакций", e);
+            throw new RuntimeException("Failed to clear transactions", e);
+        }
+    }
+
+    // 7. Удаление по id
     public void delete(long id) {
         String sql = "DELETE FROM transactions WHERE id = ?";
-        try (Connection conn = DataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setLong(1, id);
-            stmt.executeUpdate();
+        try (Connection conn = DataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            summaryDAO.subtract(conn, List.of(id));
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setLong(1, id);
+                stmt.executeUpdate();
+            }
+            conn.commit();
             log.info("Удалена транзакция с id={}", id);
         } catch (SQLException e) {
             log.error("Ошибка при удалении транзакции id={}", id, e);
@@ -56,14 +264,14 @@ public class TransactionDAO {
         }
     }
 
-    // 3. Получение всех транзакций
+    // 8. Получение всех транзакций
     public List<Transaction> findAll() {
         List<Transaction> transactions = new ArrayList<>();
         String sql = """
             SELECT t.*, c.name as category_name, c.type as category_type
             FROM transactions t
             LEFT JOIN categories c ON t.category_id = c.id
-            ORDER BY t.transaction_date DESC
+            ORDER BY t.transaction_date DESC, t.id DESC
             """;
 
         try (Connection conn = DataSource.getConnection();
@@ -71,32 +279,221 @@ public class TransactionDAO {
              ResultSet rs = stmt.executeQuery()) {
 
             while (rs.next()) {
-                Transaction t = new Transaction();
-                t.setId(rs.getLong("id"));
-                t.setTitle(rs.getString("title"));
-                t.setAmount(rs.getBigDecimal("amount"));
-                t.setCurrency(rs.getString("currency"));
-                t.setTransaction_date(rs.getDate("transaction_date").toLocalDate());
-                t.setCategory_id(rs.getLong("category_id"));
-
-                // Если есть категория, создаем объект
-                String categoryName = rs.getString("category_name");
-                if (categoryName != null) {
-                    Category cat = new Category();
-                    cat.setId(rs.getLong("category_id"));
-                    cat.setName(categoryName);
-                    cat.setType(rs.getString("category_type"));
-                    t.setCategory(cat);
+                transactions.add(mapRow(rs));
+            }
+
+        } catch (SQLException e) {
+            log.error("Ошибка при загрузке транзакций", e);
+            throw new RuntimeException("Failed to load transactions", e);
+        }
+
+        return transactions;
+    }
+
+    // Сумма операций за день в одной валюте и одного типа (в копейках)
+    public interface DailyTotalVisitor {
+        void visit(String currency, int epochDay, boolean income, long amountMinor);
+    }
+
+    // 9. Первый и последний день истории (epoch day); null, если транзакций нет
+    public int[] dayRange() {
+        String sql = "SELECT MIN(transaction_date), MAX(transaction_date) FROM transactions";
+        try (Connection conn = DataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            LocalDate first = rs.getObject(1, LocalDate.class);
+            LocalDate last = rs.getObject(2, LocalDate.class);
+            return first != null ? new int[]{(int) first.toEpochDay(), (int) last.toEpochDay()} : null;
+        } catch (SQLException e) {
+            log.error("Ошибка при чтении диапазона дат транзакций", e);
+            throw new RuntimeException("Failed to load transaction date range", e);
+        }
+    }
+
+    // 10. Суммы по (валюта, день, категория) — агрегирование на стороне БД, строк порядка дней × валют × категорий.
+    // Тип категории берётся из кэша категорий (без категории — расход).
+    public void sumByDay(DailyTotalVisitor visitor) {
+        String sql = """
+            SELECT currency, transaction_date, category_id, SUM(amount)
+            FROM transactions
+            GROUP BY currency, transaction_date, category_id
+            """;
+        CategoryDAO categories = new CategoryDAO();
+
+        try (Connection conn = DataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setFetchSize(10_000);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    long categoryId = rs.getLong(3);
+                    Category category = categoryId > 0 ? categories.getById(categoryId) : null;
+                    visitor.visit(rs.getString(1), (int) rs.getObject(2, LocalDate.class).toEpochDay(),
+                            category != null && "income".equals(category.getType()),
+                            rs.getBigDecimal(4).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
                 }
+            }
+        } catch (SQLException e) {
+            log.error("Ошибка при подсчёте сумм по дням", e);
+            throw new RuntimeException("Failed to aggregate transactions by day", e);
+        }
+    }
+
+    // 11. Одна транзакция по id (null, если не найдена)
+    public Transaction findById(long id) {
+        String sql = """
+            SELECT t.*, c.name as category_name, c.type as category_type
+            FROM transactions t
+            LEFT JOIN categories c ON t.category_id = c.id
+            WHERE t.id = ?
+            """;
 
-                transactions.add(t);
+        try (Connection conn = DataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? mapRow(rs) : null;
             }
+        } catch (SQLException e) {
+            log.error("Ошибка при загрузке транзакции id={}", id, e);
+            throw new RuntimeException("Failed to load transaction", e);
+        }
+    }
 
+    // 12. Несколько транзакций по списку id
+    public List<Transaction> findByIds(Collection<Long> ids) {
+        List<Transaction> transactions = new ArrayList<>(ids.size());
+        String sql = """
+            SELECT t.*, c.name as category_name, c.type as category_type
+            FROM transactions t
+            LEFT JOIN categories c ON t.category_id = c.id
+            WHERE t.id = ANY(?)
+            """;
+
+        try (Connection conn = DataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setArray(1, conn.createArrayOf("BIGINT", ids.toArray()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    transactions.add(mapRow(rs));
+                }
+            }
         } catch (SQLException e) {
-            log.error("Ошибка при загрузке транзакций", e);
+            log.error("Ошибка при загрузке транзакций по списку id", e);
             throw new RuntimeException("Failed to load transactions", e);
         }
 
         return transactions;
     }
+
+    // 13. Страница истории строго после ключа after (null — с самой новой транзакции)
+    public List<Transaction> findPageAfter(TransactionKey after, int limit) {
+        return findPage(after, false, limit);
+    }
+
+    // 14. Страница истории, начиная с ключа from включительно
+    public List<Transaction> findPageFrom(TransactionKey from, int limit) {
+        return findPage(from, true, limit);
+    }
+
+    // Keyset-пагинация по (transaction_date, id): без OFFSET, стоимость не зависит от номера страницы
+    private List<Transaction> findPage(TransactionKey key, boolean inclusive, int limit) {
+        List<Transaction> transactions = new ArrayList<>(limit);
+        String where = key == null ? "" : inclusive
+                ? "WHERE t.transaction_date < ? OR (t.transaction_date = ? AND t.id <= ?)"
+                : "WHERE t.transaction_date < ? OR (t.transaction_date = ? AND t.id < ?)";
+        String sql = """
+            SELECT t.*, c.name as category_name, c.type as category_type
+            FROM transactions t
+            LEFT JOIN categories c ON t.category_id = c.id
+            %s
+            ORDER BY t.transaction_date DESC, t.id DESC
+            LIMIT ?
+            """.formatted(where);
+
+        try (Connection conn = DataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int i = 1;
+            if (key != null) {
+                Date date = Date.valueOf(key.getDate());
+                stmt.setDate(i++, date);
+                stmt.setDate(i++, date);
+                stmt.setLong(i++, key.getId());
+            }
+            stmt.setInt(i, limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    transactions.add(mapRow(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            log.error("Ошибка при загрузке страницы транзакций после {}", key, e);
+            throw new RuntimeException("Failed to load transactions page", e);
+        }
+
+        return transactions;
+    }
+
+    // 15. Ключи первых строк каждой страницы — для перехода к произвольной странице
+    public List<TransactionKey> findPageStartKeys(int pageSize) {
+        List<TransactionKey> keys = new ArrayList<>();
+        String sql = """
+            SELECT transaction_date, id FROM (
+                SELECT transaction_date, id,
+                       ROW_NUMBER() OVER (ORDER BY transaction_date DESC, id DESC) AS rn
+                FROM transactions
+            ) WHERE MOD(rn - 1, ?) = 0
+            ORDER BY rn
+            """;
+
+        try (Connection conn = DataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, pageSize);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    keys.add(new TransactionKey(rs.getDate(1).toLocalDate(), rs.getLong(2)));
+                }
+            }
+
+        } catch (SQLException e) {
+            log.error("Ошибка при загрузке границ страниц", e);
+            throw new RuntimeException("Failed to load page boundaries", e);
+        }
+
+        return keys;
+    }
+
+    // 16. Количество транзакций
+    public int count() {
+        try (Connection conn = DataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM transactions");
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        } catch (SQLException e) {
+            log.error("Ошибка при подсчёте транзакций", e);
+            throw new RuntimeException("Failed to count transactions", e);
+        }
+    }
+
+    private Transaction mapRow(ResultSet rs) throws SQLException {
+        Transaction t = new Transaction();
+        t.setId(rs.getLong("id"));
+        t.setTitle(rs.getString("title"));
+        t.setAmount(rs.getBigDecimal("amount"));
+        t.setCurrency(rs.getString("currency"));
+        t.setTransaction_date(rs.getDate("transaction_date").toLocalDate());
+        t.setCategory_id(rs.getObject("category_id", Long.class));
+
+        // Если есть категория — общий экземпляр из кэша категорий
+        String categoryName = rs.getString("category_name");
+        if (categoryName != null) {
+            t.setCategory(CategoryDAO.shared(rs.getLong("category_id"), categoryName, rs.getString("category_type")));
+        }
+        return t;
+    }
 }
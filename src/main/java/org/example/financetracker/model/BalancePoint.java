@@ -0,0 +1,24 @@
+package org.example.financetracker.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Точка графика баланса: баланс в основной валюте на конец дня date
+public class BalancePoint {
+    private final LocalDate date;
+    private final BigDecimal balance;
+
+    public BalancePoint(LocalDate date, BigDecimal balance) {
+        this.date = date;
+        this.balance = balance;
+    }
+
+    // == ГЕТТЕРЫ ==
+    public LocalDate getDate() {return date;}
+    public BigDecimal getBalance() {return balance;}
+
+    @Override
+    public String toString() {
+        return String.format("BalancePoint{%s %s}", date, balance);
+    }
+}
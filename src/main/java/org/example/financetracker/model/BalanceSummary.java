@@ -0,0 +1,29 @@
+package org.example.financetracker.model;
+
+import java.math.BigDecimal;
+
+// Баланс, доходы и расходы в основной валюте — всё, что показывает шапка главного окна
+public class BalanceSummary {
+    private final String currency;
+    private final BigDecimal balance;
+    private final BigDecimal income;
+    private final BigDecimal expense;
+
+    public BalanceSummary(String currency, BigDecimal balance, BigDecimal income, BigDecimal expense) {
+        this.currency = currency;
+        this.balance = balance;
+        this.income = income;
+        this.expense = expense;
+    }
+
+    // == ГЕТТЕРЫ ==
+    public String getCurrency() {return currency;}
+    public BigDecimal getBalance() {return balance;}
+    public BigDecimal getIncome() {return income;}
+    public BigDecimal getExpense() {return expense;}
+
+    @Override
+    public String toString() {
+        return String.format("BalanceSummary{%s %s, +%s, -%s}", balance, currency, income, expense);
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.financetracker.model;
+
+import java.math.BigDecimal;
+
+// Сумма транзакций одной валюты и одного типа категории (income / expense / null — без категории)
+public class CurrencyTotal {
+    private final String currency;
+    private final String categoryType;
+    private final BigDecimal amount;
+
+    public CurrencyTotal(String currency, String categoryType, BigDecimal amount) {
+        this.currency = currency;
+        this.categoryType = categoryType;
+        this.amount = amount;
+    }
+
+    // == ГЕТТЕРЫ ==
+    public String getCurrency() {return currency;}
+    public String getCategoryType() {return categoryType;}
+    public BigDecimal getAmount() {return amount;}
+
+    public boolean isIncome() {
+        return "income".equals(categoryType);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CurrencyTotal{%s %s %s}", currency, categoryType, amount);
+    }
+}
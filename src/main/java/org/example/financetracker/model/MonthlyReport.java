@@ -0,0 +1,44 @@
+package org.example.financetracker.model;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Доходы и расходы по месяцам и категориям за период [from, to] в основной валюте
+public class MonthlyReport {
+    private final String currency;
+    private final YearMonth from;
+    private final YearMonth to;
+    private final List<ReportRow> rows;
+
+    public MonthlyReport(String currency, YearMonth from, YearMonth to, List<ReportRow> rows) {
+        this.currency = currency;
+        this.from = from;
+        this.to = to;
+        this.rows = List.copyOf(rows);
+    }
+
+    // == ГЕТТЕРЫ ==
+    public String getCurrency() {return currency;}
+    public YearMonth getFrom() {return from;}
+    public YearMonth getTo() {return to;}
+    public List<ReportRow> getRows() {return rows;}
+
+    // Итог месяца по типу (income / expense), только месяцы с операциями
+    public Map<YearMonth, BigDecimal> getMonthTotals(String type) {
+        Map<YearMonth, BigDecimal> totals = new TreeMap<>();
+        for (ReportRow row : rows) {
+            if (type.equals(row.getType())) {
+                totals.merge(row.getMonth(), row.getAmount(), BigDecimal::add);
+            }
+        }
+        return totals;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MonthlyReport{%s..%s, %s, rows=%d}", from, to, currency, rows.size());
+    }
+}
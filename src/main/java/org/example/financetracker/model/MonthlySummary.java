@@ -0,0 +1,33 @@
+package org.example.financetracker.model;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+// Строка MONTHLY_SUMMARY: сумма и число операций одной категории в одной валюте за месяц
+public class MonthlySummary {
+    private final YearMonth month;
+    private final Long categoryId;
+    private final String currency;
+    private final BigDecimal total;
+    private final long count;
+
+    public MonthlySummary(YearMonth month, Long categoryId, String currency, BigDecimal total, long count) {
+        this.month = month;
+        this.categoryId = categoryId;
+        this.currency = currency;
+        this.total = total;
+        this.count = count;
+    }
+
+    // == ГЕТТЕРЫ ==
+    public YearMonth getMonth() {return month;}
+    public Long getCategoryId() {return categoryId;}
+    public String getCurrency() {return currency;}
+    public BigDecimal getTotal() {return total;}
+    public long getCount() {return count;}
+
+    @Override
+    public String toString() {
+        return String.format("MonthlySummary{%s cat=%s %s %s x%d}", month, categoryId, total, currency, count);
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.financetracker.model;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+// Строка отчёта: сумма операций одной категории за месяц в основной валюте
+public class ReportRow {
+    private final YearMonth month;
+    private final Long categoryId;
+    private final String categoryName;
+    private final String type;
+    private final BigDecimal amount;
+
+    public ReportRow(YearMonth month, Long categoryId, String categoryName, String type, BigDecimal amount) {
+        this.month = month;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.type = type;
+        this.amount = amount;
+    }
+
+    // == ГЕТТЕРЫ ==
+    public YearMonth getMonth() {return month;}
+    public Long getCategoryId() {return categoryId;}
+    public String getCategoryName() {return categoryName;}
+    public String getType() {return type;}
+    public BigDecimal getAmount() {return amount;}
+
+    public boolean isIncome() {
+        return "income".equals(type);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ReportRow{%s %s (%s) %s}", month, categoryName, type, amount);
+    }
+}
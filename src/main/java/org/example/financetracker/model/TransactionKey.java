@@ -0,0 +1,40 @@
+package org.example.financetracker.model;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+// Позиция транзакции в истории: порядок (transaction_date DESC, id DESC) — ключ для постраничной загрузки
+public final class TransactionKey {
+    private final LocalDate date;
+    private final long id;
+
+    public TransactionKey(LocalDate date, long id) {
+        this.date = Objects.requireNonNull(date, "date");
+        this.id = id;
+    }
+
+    public static TransactionKey of(Transaction t) {
+        return new TransactionKey(t.getTransaction_date(), t.getId());
+    }
+
+    // == ГЕТТЕРЫ ==
+    public LocalDate getDate() {return date;}
+    public long getId() {return id;}
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TransactionKey other)) return false;
+        return id == other.id && date.equals(other.date);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(date, id);
+    }
+
+    @Override
+    public String toString() {
+        return date + "#" + id;
+    }
+}
@@ -0,0 +1,179 @@
+package org.example.financetracker.service;
+
+import org.example.financetracker.db.CategoryDAO;
+import org.example.financetracker.db.SettingsDAO;
+import org.example.financetracker.model.BalancePoint;
+import org.example.financetracker.model.BalanceSummary;
+import org.example.financetracker.model.Category;
+import org.example.financetracker.model.MonthlyReport;
+import org.example.financetracker.model.Transaction;
+import org.example.financetracker.model.TransactionKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Асинхронный фасад для UI: вся работа с БД и сетью выполняется на виртуальных потоках,
+// поток JavaFX только применяет готовые результаты (thenAcceptAsync(..., Platform::runLater)).
+public class AsyncFinanceService implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(AsyncFinanceService.class);
+    // сколько ждать начатые задачи при закрытии
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+    private final TransactionService transactionService;
+    private final ExchangeRateService exchangeRateService;
+    private final CategoryDAO categoryDAO;
+    private final SettingsDAO settingsDAO;
+    private final ExecutorService executor;
+
+    public AsyncFinanceService(TransactionService transactionService, ExchangeRateService exchangeRateService,
+                               CategoryDAO categoryDAO, SettingsDAO settingsDAO) {
+        this.transactionService = transactionService;
+        this.exchangeRateService = exchangeRateService;
+        this.categoryDAO = categoryDAO;
+        this.settingsDAO = settingsDAO;
+        ThreadFactory factory = Thread.ofVirtual().name("finance-io-", 0).factory();
+        this.executor = Executors.newThreadPerTaskExecutor(factory);
+    }
+
+    // == БАЛАНС ==
+    public CompletableFuture<BalanceSummary> balance() {
+        return supply(() -> {
+            String currency = settingsDAO.getMainCurrency();
+            BigDecimal balance = transactionService.calculateTotalBalance();
+            Map<String, BigDecimal> totals = transactionService.calculateIncomeExpense();
+            return new BalanceSummary(currency, balance, totals.get("income"), totals.get("expense"));
+        });
+    }
+
+    public CompletableFuture<BigDecimal> balanceAsOf(LocalDate date) {
+        return supply(() -> transactionService.calculateBalanceAsOf(date));
+    }
+
+    public CompletableFuture<List<BalancePoint>> balanceHistory(LocalDate from, LocalDate to, Period step) {
+        return supply(() -> transactionService.getBalanceHistory(from, to, step));
+    }
+
+    public CompletableFuture<MonthlyReport> monthlyReport(YearMonth from, YearMonth to) {
+        return supply(() -> transactionService.buildMonthlyReport(from, to));
+    }
+
+    // Загрузка архива ежедневных курсов ЦБ в историю; число загруженных дней
+    public CompletableFuture<Integer> backfillRateHistory(Path archiveDir) {
+        return supply(() -> {
+            try {
+                return exchangeRateService.backfillHistory(archiveDir);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public CompletableFuture<Integer> rebuildMonthlySummary() {
+        return supply(transactionService::rebuildMonthlySummary);
+    }
+
+    // == ТРАНЗАКЦИИ ==
+    public CompletableFuture<Void> addTransaction(Transaction transaction) {
+        return run(() -> transactionService.addTransaction(transaction));
+    }
+
+    public CompletableFuture<Void> updateTransaction(Transaction transaction) {
+        return run(() -> transactionService.updateTransaction(transaction));
+    }
+
+    public CompletableFuture<Void> deleteTransaction(long id) {
+        return run(() -> transactionService.deleteTransaction(id));
+    }
+
+    public CompletableFuture<Void> clearAllTransactions() {
+        return run(transactionService::clearAllTransactions);
+    }
+
+    public CompletableFuture<ImportResult> importStatement(Path file) {
+        return supply(() -> {
+            try {
+                return transactionService.importStatement(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public CompletableFuture<Integer> countTransactions() {
+        return supply(transactionService::countTransactions);
+    }
+
+    public CompletableFuture<List<Transaction>> getTransactionPage(TransactionKey after, int limit) {
+        return supply(() -> transactionService.getTransactionPage(after, limit));
+    }
+
+    public CompletableFuture<List<Transaction>> getTransactionPageFrom(TransactionKey from, int limit) {
+        return supply(() -> transactionService.getTransactionPageFrom(from, limit));
+    }
+
+    public CompletableFuture<List<TransactionKey>> getPageStartKeys(int pageSize) {
+        return supply(() -> transactionService.getPageStartKeys(pageSize));
+    }
+
+    // == КАТЕГОРИИ ==
+    public CompletableFuture<List<Category>> getCategories() {
+        return supply(categoryDAO::getAll);
+    }
+
+    public CompletableFuture<Category> addCategory(String name, String type) {
+        return supply(() -> categoryDAO.add(name, type));
+    }
+
+    // == НАСТРОЙКИ И КУРСЫ ==
+    public CompletableFuture<String> getMainCurrency() {
+        return supply(settingsDAO::getMainCurrency);
+    }
+
+    public CompletableFuture<Void> setMainCurrency(String currency) {
+        return run(() -> settingsDAO.setMainCurrency(currency));
+    }
+
+    public CompletableFuture<Void> refreshRates() {
+        return run(() -> exchangeRateService.refreshAllRates(settingsDAO.getMainCurrency()));
+    }
+
+    public CompletableFuture<Void> run(Runnable action) {
+        return CompletableFuture.runAsync(action, executor);
+    }
+
+    public <T> CompletableFuture<T> supply(Supplier<T> action) {
+        return CompletableFuture.supplyAsync(action, executor);
+    }
+
+    // Новые задачи не принимаются; начатые (например, импорт) дорабатывают до конца, но не дольше CLOSE_TIMEOUT_SECONDS.
+    // После возврата к БД никто не обращается — можно закрывать пул соединений.
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Фоновые задачи не завершились за {} с, прерываем", CLOSE_TIMEOUT_SECONDS);
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        log.debug("Асинхронный фасад остановлен");
+    }
+}
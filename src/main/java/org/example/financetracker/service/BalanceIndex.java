@@ -0,0 +1,215 @@
+package org.example.financetracker.service;
+
+import org.example.financetracker.db.TransactionDAO;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Префиксные суммы по дням для баланса на дату и итогов за период.
+// По каждой валюте два дерева Фенвика (доходы и расходы) над общим диапазоном дней [baseDay, baseDay + days):
+// добавление операции и сумма за любой период — O(log n) по числу дней, а не по числу операций.
+// Суммы в копейках, дни — от 1970-01-01. Рядом хранятся суммы по дням, чтобы перестроить деревья при расширении диапазона.
+public final class BalanceIndex {
+    // запас по краям диапазона, чтобы новые операции "сегодня" и немного в будущем не вызывали перестройку
+    private static final int MARGIN_DAYS = 366;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Series> series = new LinkedHashMap<>();
+    private int baseDay;
+    private int days;
+
+    // Суммы по дням одной валюты и одного типа
+    private static final class Series {
+        // [0] — расходы, [1] — доходы
+        final long[][] daily = new long[2][];
+        final long[][] tree = new long[2][];
+
+        Series(int days) {
+            for (int type = 0; type < 2; type++) {
+                daily[type] = new long[days];
+                tree[type] = new long[days + 1];
+            }
+        }
+    }
+
+    // Суммы одной валюты за период в копейках
+    public interface CurrencyTotalsVisitor {
+        void visit(String currency, long incomeMinor, long expenseMinor);
+    }
+
+    // Доходы и расходы одной валюты за один день (в копейках)
+    public interface DayVisitor {
+        void visit(int epochDay, long incomeMinor, long expenseMinor);
+    }
+
+    // == ЧТЕНИЕ ==
+    // Доходы и расходы по валютам за дни [fromDay, toDay] (epoch day, включительно)
+    public void sumByCurrency(int fromDay, int toDay, CurrencyTotalsVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            if (fromDay > toDay) {
+                return;
+            }
+            for (Map.Entry<String, Series> entry : series.entrySet()) {
+                Series s = entry.getValue();
+                long income = MoneyMath.subtract(prefix(s.tree[1], toDay), prefix(s.tree[1], (long) fromDay - 1));
+                long expense = MoneyMath.subtract(prefix(s.tree[0], toDay), prefix(s.tree[0], (long) fromDay - 1));
+                if (income != 0 || expense != 0) {
+                    visitor.visit(entry.getKey(), income, expense);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Дни валюты с операциями в [fromDay, toDay] по возрастанию — для пересчёта по курсу на дату, O(дней)
+    public void forEachDay(String currency, int fromDay, int toDay, DayVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            Series s = series.get(currency);
+            if (s == null) {
+                return;
+            }
+            long[] income = s.daily[1];
+            long[] expense = s.daily[0];
+            int from = (int) Math.max((long) fromDay - baseDay, 0);
+            int to = (int) Math.min((long) toDay - baseDay, days - 1L);
+            for (int d = from; d <= to; d++) {
+                if (income[d] != 0 || expense[d] != 0) {
+                    visitor.visit(baseDay + d, income[d], expense[d]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int currencyCount() {
+        lock.readLock().lock();
+        try {
+            return series.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Дерево + суммы по дням: 16 байт на день, валюту и тип
+    public long memoryBytes() {
+        lock.readLock().lock();
+        try {
+            return series.size() * 2L * (2L * days + 1) * Long.BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Сумма за дни [baseDay, day]; дни вне диапазона прижимаются к краям
+    private long prefix(long[] tree, long day) {
+        if (day < baseDay) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = (int) Math.min(day - baseDay + 1, days); i > 0; i -= i & -i) {
+            sum = MoneyMath.add(sum, tree[i]);
+        }
+        return sum;
+    }
+
+    // == ИЗМЕНЕНИЕ (только из TransactionService, под его блокировкой записи) ==
+    void load(TransactionDAO dao) {
+        lock.writeLock().lock();
+        try {
+            series.clear();
+            // сначала диапазон дат, затем суммы по (день, валюта, тип) — агрегируются на стороне БД
+            int today = (int) LocalDate.now().toEpochDay();
+            int[] range = dao.dayRange();
+            allocate(range != null ? range[0] : today, range != null ? range[1] : today);
+            dao.sumByDay((currency, epochDay, income, amountMinor) -> {
+                Series s = series.computeIfAbsent(currency, c -> new Series(days));
+                int type = income ? 1 : 0;
+                s.daily[type][epochDay - baseDay] = MoneyMath.add(s.daily[type][epochDay - baseDay], amountMinor);
+            });
+            for (Series s : series.values()) {
+                build(s);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            series.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Прибавляет операцию (для удаления — с отрицательной суммой)
+    void add(String currency, int epochDay, boolean income, long amountMinor) {
+        if (amountMinor == 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (epochDay < baseDay || epochDay >= baseDay + days) {
+                extend(epochDay);
+            }
+            Series s = series.computeIfAbsent(currency, c -> new Series(days));
+            int type = income ? 1 : 0;
+            int offset = epochDay - baseDay;
+            s.daily[type][offset] = MoneyMath.add(s.daily[type][offset], amountMinor);
+            long[] tree = s.tree[type];
+            for (int i = offset + 1; i <= days; i += i & -i) {
+                tree[i] = MoneyMath.add(tree[i], amountMinor);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void allocate(int fromDay, int toDay) {
+        baseDay = fromDay - MARGIN_DAYS;
+        days = toDay - fromDay + 1 + 2 * MARGIN_DAYS;
+    }
+
+    // Дата вне диапазона: расширяем его (с запасом) и перестраиваем деревья по суммам по дням — O(дней)
+    private void extend(int epochDay) {
+        int oldBase = baseDay;
+        int oldDays = days;
+        if (oldDays == 0) {
+            allocate(epochDay, epochDay);
+            return;
+        }
+        allocate(Math.min(epochDay, oldBase), Math.max(epochDay, oldBase + oldDays - 1));
+        for (Series s : series.values()) {
+            for (int type = 0; type < 2; type++) {
+                long[] daily = new long[days];
+                System.arraycopy(s.daily[type], 0, daily, oldBase - baseDay, oldDays);
+                s.daily[type] = daily;
+                s.tree[type] = new long[days + 1];
+            }
+            build(s);
+        }
+    }
+
+    // Построение дерева за O(n): каждый узел передаёт свою сумму родителю
+    private void build(Series s) {
+        for (int type = 0; type < 2; type++) {
+            long[] tree = s.tree[type];
+            Arrays.fill(tree, 0);
+            System.arraycopy(s.daily[type], 0, tree, 1, days);
+            for (int i = 1; i <= days; i++) {
+                int parent = i + (i & -i);
+                if (parent <= days) {
+                    tree[parent] = MoneyMath.add(tree[parent], tree[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.example.financetracker.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Ежедневный документ ЦБ (cbr-xml-daily.ru) по HTTP с условными запросами
+public class CbrRateProvider implements RateProvider {
+    public static final String DEFAULT_URL = "https://www.cbr-xml-daily.ru/daily_json.js";
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final Duration HTTP_TIMEOUT = Duration.ofSeconds(10);
+    // из документа ЦБ читаем только эти валюты
+    private static final Set<String> WANTED_CURRENCIES = Set.copyOf(RateSnapshot.CBR_CURRENCIES);
+
+    // общий клиент на все запросы: соединение с ЦБ переиспользуется между обновлениями.
+    // Создаётся при первом запросе — запуск без обращения к сети (пакетный режим) не платит за его потоки.
+    private static final class Http {
+        static final HttpClient CLIENT = HttpClient.newBuilder()
+                .connectTimeout(HTTP_TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    private final String url;
+    private final Duration deadline;
+    // последний полный ответ и его валидаторы: неизменившийся документ приходит как 304
+    private volatile Validated last;
+
+    // Снимок, разобранный из ответа с такими ETag и Last-Modified
+    private record Validated(RateSnapshot snapshot, String etag, String lastModified) {
+    }
+
+    public CbrRateProvider(String url) {
+        this(url, HTTP_TIMEOUT);
+    }
+
+    public CbrRateProvider(String url, Duration deadline) {
+        this.url = url;
+        this.deadline = deadline;
+    }
+
+    @Override
+    public String name() {
+        return "ЦБ РФ";
+    }
+
+    @Override
+    public Duration deadline() {
+        return deadline;
+    }
+
+    @Override
+    public RateSnapshot fetch(RateSnapshot current) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(HTTP_TIMEOUT)
+                .header("User-Agent", "Mozilla/5.0")
+                .header("Accept", "application/json");
+        // валидаторы — только если текущие курсы взяты из нашего же ответа: 304 продлит именно их.
+        // Снимок из файла, заданных курсов или БД так подтверждать нельзя — нужен полный документ.
+        Validated validated = last;
+        if (validated != null && current.sharesRatesWith(validated.snapshot())) {
+            if (validated.etag() != null) {
+                request.header("If-None-Match", validated.etag());
+            }
+            if (validated.lastModified() != null) {
+                request.header("If-Modified-Since", validated.lastModified());
+            }
+        }
+
+        HttpResponse<InputStream> response = Http.CLIENT.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            if (response.statusCode() == 304) {
+                return null;
+            }
+            if (response.statusCode() != 200) {
+                throw new IOException("Ошибка HTTP " + response.statusCode() + " при запросе к ЦБ");
+            }
+            RateSnapshot fetched = parseDaily(body, LocalDate.now());
+            last = new Validated(fetched, response.headers().firstValue("ETag").orElse(null),
+                    response.headers().firstValue("Last-Modified").orElse(null));
+            return fetched;
+        }
+    }
+
+    // Потоковый разбор документа ЦБ прямо из ответа или файла, без дерева JSON и промежуточных строк.
+    // Из раздела Valute берутся только Nominal и Value нужных валют, остальные поля пропускаются.
+    // Без поля Date дата курсов — defaultDate.
+    static RateSnapshot parseDaily(InputStream in, LocalDate defaultDate) throws IOException {
+        Map<String, BigDecimal> rates = new HashMap<>();
+        LocalDate rateDate = defaultDate;
+        boolean hasValute = false;
+        try (JsonParser parser = JSON.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Ответ ЦБ — не JSON-объект");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("Date".equals(field) && value == JsonToken.VALUE_STRING) {
+                    rateDate = OffsetDateTime.parse(parser.getText()).toLocalDate();
+                } else if ("Valute".equals(field) && value == JsonToken.START_OBJECT) {
+                    hasValute = true;
+                    readValute(parser, rates);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        if (!hasValute) {
+            throw new IOException("В ответе ЦБ нет раздела Valute");
+        }
+        return new RateSnapshot(rates, rateDate, LocalDateTime.now());
+    }
+
+    // "Valute": {"USD": {"Nominal": 1, "Value": 90.1, ...}, ...} → курс к рублю за единицу валюты
+    private static void readValute(JsonParser parser, Map<String, BigDecimal> rates) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String code = parser.currentName();
+            if (parser.nextToken() != JsonToken.START_OBJECT || !WANTED_CURRENCIES.contains(code)) {
+                parser.skipChildren();
+                continue;
+            }
+            BigDecimal value = null;
+            BigDecimal nominal = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                boolean numeric = parser.nextToken().isNumeric();
+                if (numeric && "Value".equals(field)) {
+                    value = parser.getDecimalValue();
+                } else if (numeric && "Nominal".equals(field)) {
+                    nominal = parser.getDecimalValue();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (value != null && nominal != null && value.signum() > 0 && nominal.signum() > 0) {
+                rates.put(code, value.divide(nominal, 6, RoundingMode.HALF_UP));
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CbrRateProvider{" + url + "}";
+    }
+}
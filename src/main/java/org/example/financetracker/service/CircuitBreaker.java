@@ -0,0 +1,91 @@
+package org.example.financetracker.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+// Предохранитель для сетевых запросов: после серии ошибок перестаёт пускать запросы
+// и открывается снова через экспоненциально растущую паузу.
+// CLOSED — запросы идут; OPEN — запросы не выполняются до retryAt;
+// HALF_OPEN — пропущен один пробный запрос, ждём его результата.
+public class CircuitBreaker {
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long baseBackoffNanos;
+    private final long maxBackoffNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private int openCount;
+    private long retryAtNanos;
+
+    public CircuitBreaker(String name, int failureThreshold, Duration baseBackoff, Duration maxBackoff) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.baseBackoffNanos = baseBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+    }
+
+    // Можно ли сейчас выполнить запрос. В OPEN после паузы пропускает ровно один пробный.
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - retryAtNanos >= 0) {
+                    transition(State.HALF_OPEN);
+                    return true;
+                }
+                return false;
+            default:
+                // пробный запрос уже выполняется
+                return false;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        openCount = 0;
+        if (state != State.CLOSED) {
+            transition(State.CLOSED);
+        }
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            // пауза удваивается при каждом повторном открытии: base, 2*base, 4*base ... max
+            long backoff = baseBackoffNanos << Math.min(openCount, 20);
+            if (backoff <= 0 || backoff > maxBackoffNanos) {
+                backoff = maxBackoffNanos;
+            }
+            openCount++;
+            retryAtNanos = System.nanoTime() + backoff;
+            transition(State.OPEN);
+            log.warn("{}: запросы приостановлены на {} с после {} ошибок подряд",
+                    name, Duration.ofNanos(backoff).toSeconds(), consecutiveFailures);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    // Сколько осталось до следующей попытки (ноль, если запросы разрешены)
+    public synchronized Duration getRetryDelay() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(Math.max(0, retryAtNanos - System.nanoTime()));
+    }
+
+    private void transition(State next) {
+        log.info("{}: {} → {}", name, state, next);
+        state = next;
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.financetracker.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// CSV-выписка: дата, название, сумма[, валюта[, категория]].
+// Разделитель — ';' или ',' (по первой строке), строка заголовка пропускается,
+// даты в формате yyyy-MM-dd или dd.MM.yyyy, дробная часть суммы через точку или запятую.
+class CsvStatementReader implements StatementReader {
+    private static final DateTimeFormatter RU_DATE = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+    private final BufferedReader reader;
+    private char delimiter;
+    private long lineNumber;
+
+    CsvStatementReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public StatementRecord next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+            if (lineNumber == 1) {
+                line = stripBom(line);
+                delimiter = line.indexOf(';') >= 0 ? ';' : ',';
+                if (isHeader(line)) {
+                    line = "";
+                }
+            }
+        } while (line.isBlank());
+
+        List<String> fields = split(line);
+        if (fields.size() < 3) {
+            throw new IllegalArgumentException("Строка " + lineNumber + ": ожидается минимум 3 поля, получено " + fields.size());
+        }
+        try {
+            LocalDate date = parseDate(fields.get(0));
+            String title = fields.get(1);
+            BigDecimal amount = parseAmount(fields.get(2));
+            String currency = fields.size() > 3 && !fields.get(3).isBlank() ? fields.get(3).toUpperCase(Locale.ROOT) : null;
+            String category = fields.size() > 4 && !fields.get(4).isBlank() ? fields.get(4) : null;
+            return new StatementRecord(date, title, amount, currency, category);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Строка " + lineNumber + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static String stripBom(String line) {
+        return !line.isEmpty() && line.charAt(0) == '\uFEFF' ? line.substring(1) : line;
+    }
+
+    private static boolean isHeader(String line) {
+        String lower = line.toLowerCase(Locale.ROOT);
+        return lower.startsWith("date") || lower.startsWith("дата") || lower.startsWith("\"date") || lower.startsWith("\"дата");
+    }
+
+    private static LocalDate parseDate(String text) {
+        String value = text.trim();
+        return value.indexOf('.') > 0 ? LocalDate.parse(value, RU_DATE) : LocalDate.parse(value);
+    }
+
+    private static BigDecimal parseAmount(String text) {
+        String value = text.replace(" ", "").replace("\u00A0", "").replace(',', '.');
+        return new BigDecimal(value);
+    }
+
+    // Разбор строки с учётом кавычек ("" внутри кавычек — одна кавычка)
+    private List<String> split(String line) {
+        List<String> fields = new ArrayList<>(5);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (ch == '"') {
+                    quoted = false;
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == delimiter) {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(ch);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+}
@@ -4,166 +4,559 @@ import org.example.financetracker.db.ExchangeRateDAO;
 import org.example.financetracker.model.ExchangeRate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.TreeMap;
 import java.util.List;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
-public class ExchangeRateService {
+// Курсы ЦБ: снимок в памяти, история по дням и загрузка свежих курсов из источников (RateProvider).
+// Загрузка идёт на одном фоновом потоке "cbr-refresh"; одновременные запросы обновления (getRate с новой валютой,
+// кнопка "Обновить курсы", повторный клик) получают один и тот же выполняющийся запрос, а не запускают свои.
+// Источники опрашиваются параллельно, каждый со своим сроком; побеждает первый пришедший годный ответ.
+// После startBackgroundRefresh курсы обновляются по расписанию, а getRate никогда не ждёт сеть.
+public class ExchangeRateService implements AutoCloseable {
     private final ExchangeRateDAO exchangeRateDAO;
     private static final Logger log = LoggerFactory.getLogger(ExchangeRateService.class);
-    private static final String CB_API_URL = "https://www.cbr-xml-daily.ru/daily_json.js";
+    // другой адрес документа ЦБ (зеркало, локальная заглушка в нагрузочных тестах) — через -Dfinancetracker.cbr.url=...
+    private static final String URL_PROPERTY = "financetracker.cbr.url";
+    // папка с сохранёнными снимками курсов — запасной источник после ЦБ (-Dfinancetracker.rates.dir=...)
+    private static final String RATES_DIR_PROPERTY = "financetracker.rates.dir";
+    // курсы считаем актуальными 24 часа
+    private static final Duration FRESHNESS = Duration.ofHours(24);
+    // валюту, которой нет в документе ЦБ, не ищем повторно в течение часа
+    private static final long MISSING_CURRENCY_TTL_NANOS = Duration.ofHours(1).toNanos();
+    // файлов архива на одну транзакцию БД при загрузке истории
+    private static final int BACKFILL_CHUNK = 250;
+    // фоновое обновление: повтор после ошибки через 1 мин, 2 мин, 4 мин ... до 30 мин (±20%)
+    private static final Duration RETRY_BASE = Duration.ofMinutes(1);
+    private static final Duration RETRY_MAX = Duration.ofMinutes(30);
+    private static final double RETRY_JITTER = 0.2;
+    // плановое обновление — в случайный момент первых 15 минут после устаревания курсов,
+    // чтобы запущенные одновременно копии приложения не приходили в ЦБ разом
+    private static final Duration SCHEDULE_JITTER = Duration.ofMinutes(15);
+    // сколько ждать выполняющееся обновление при закрытии
+    private static final long CLOSE_TIMEOUT_SECONDS = 5;
+
+    // текущий снимок курсов; читается без блокировок, заменяется целиком после загрузки
+    private final AtomicReference<RateSnapshot> snapshot = new AtomicReference<>(RateSnapshot.EMPTY);
+    // выполняющаяся загрузка; null — в сеть сейчас никто не ходит
+    private final AtomicReference<CompletableFuture<RateSnapshot>> inFlight = new AtomicReference<>();
+    // единственный поток загрузки: запросов к ЦБ не бывает больше одного одновременно
+    private final ScheduledThreadPoolExecutor refreshExecutor;
+    // источники курсов и потоки для их параллельного опроса
+    private final List<RateProvider> providers;
+    private final ExecutorService providerExecutor;
+    // офлайн: после ошибки не ходим в сеть 30 с, затем 1 мин, 2 мин ... до 30 мин
+    private final CircuitBreaker breaker = new CircuitBreaker("ЦБ РФ", 1, Duration.ofSeconds(30), Duration.ofMinutes(30));
+    // негативный кэш: валюта → System.nanoTime(), до которого её не запрашиваем
+    private final Map<String, Long> missingCurrencies = new ConcurrentHashMap<>();
+    // история курсов по дням; читается из EXCHANGE_RATE_HISTORY при первом обращении
+    private volatile RateHistory history;
+    // номер изменения курсов: растёт после каждой замены снимка или истории (для ETag и кэшей по версии)
+    private final AtomicLong ratesVersion = new AtomicLong();
+    // получатели новых снимков (вызываются на потоке загрузки)
+    private final List<Consumer<RateSnapshot>> listeners = new CopyOnWriteArrayList<>();
+    // фоновое обновление запущено; поля ниже меняет только поток cbr-refresh
+    private volatile boolean background;
+    private Supplier<? extends Collection<String>> trackedCurrencies = Set::of;
+    private int failedAttempts;
 
     public ExchangeRateService(ExchangeRateDAO exchangeRateDAO) {
+        this(exchangeRateDAO, defaultProviders());
+    }
+
+    public ExchangeRateService(ExchangeRateDAO exchangeRateDAO, String url) {
+        this(exchangeRateDAO, List.of(new CbrRateProvider(url)));
+    }
+
+    public ExchangeRateService(ExchangeRateDAO exchangeRateDAO, List<RateProvider> providers) {
+        if (providers.isEmpty()) {
+            throw new IllegalArgumentException("Нужен хотя бы один источник курсов");
+        }
         this.exchangeRateDAO = exchangeRateDAO;
+        this.providers = List.copyOf(providers);
+        this.refreshExecutor = new ScheduledThreadPoolExecutor(1, Thread.ofPlatform().name("cbr-refresh").daemon().factory());
+        // при закрытии запланированные обновления отменяются
+        this.refreshExecutor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.providerExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("rate-provider-", 0).factory());
+        this.snapshot.set(loadSavedSnapshot());
     }
 
+    // ЦБ, затем источники из ServiceLoader, затем папка снимков, если задана
+    private static List<RateProvider> defaultProviders() {
+        List<RateProvider> providers = new ArrayList<>();
+        providers.add(new CbrRateProvider(System.getProperty(URL_PROPERTY, CbrRateProvider.DEFAULT_URL)));
+        try {
+            ServiceLoader.load(RateProvider.class).forEach(providers::add);
+        } catch (ServiceConfigurationError e) {
+            log.warn("Сторонние источники курсов не загружены", e);
+        }
+        String dir = System.getProperty(RATES_DIR_PROPERTY);
+        if (dir != null) {
+            providers.add(new FileRateProvider(Path.of(dir)));
+        }
+        return providers;
+    }
+
+    public List<RateProvider> getProviders() {
+        return providers;
+    }
+
+    // Курс from → to; null — курса нет ни в снимке, ни в истории, ни в сохранённых курсах.
+    // Чтение курса не бросает исключений: сумму без курса вызывающий пропускает и пишет об этом в журнал.
     public BigDecimal getRate(String fromCurrency, String toCurrency) {
-        // если основная валюта и валюта в транзакции рубль, то курс 1
-        if ("RUB".equals(fromCurrency) && "RUB".equals(toCurrency)) {
+        // одинаковые валюты — курс 1
+        if (fromCurrency.equals(toCurrency)) {
+            return BigDecimal.ONE;
+        }
+
+        RateSnapshot current = snapshot.get();
+        // обычный случай — обе валюты в свежем снимке: одна проверка времени и чтение матрицы
+        boolean known = current.contains(fromCurrency) && current.contains(toCurrency);
+        if ((!known || !current.isFresh(FRESHNESS))
+                && (needsRefresh(current, fromCurrency) || needsRefresh(current, toCurrency))) {
+            // при фоновом обновлении не ждём сеть даже ради новой валюты: её курс придёт с новым снимком
+            current = refresh(current, known || background, false);
+            rememberIfMissing(current, fromCurrency);
+            rememberIfMissing(current, toCurrency);
+        }
+
+        BigDecimal rate = current.getRate(fromCurrency, toCurrency);
+        if (rate != null) {
+            return rate;
+        }
+        // в снимке валюты нет (фоновое обновление её ещё не принесло, последний ответ её не содержал) —
+        // последний известный курс
+        return lastKnownRate(fromCurrency, toCurrency);
+    }
+
+    // Последний известный курс: из истории по дням, затем из таблицы EXCHANGE_RATES (кросс-курс через рубль)
+    private BigDecimal lastKnownRate(String fromCurrency, String toCurrency) {
+        long micros = getHistory().rateMicros(fromCurrency, toCurrency, (int) LocalDate.now().toEpochDay());
+        if (micros != Long.MIN_VALUE) {
+            return BigDecimal.valueOf(micros, MoneyMath.RATE_SCALE);
+        }
+        BigDecimal from = storedRubRate(fromCurrency);
+        BigDecimal to = storedRubRate(toCurrency);
+        if (from == null || to == null || to.signum() <= 0) {
+            log.warn("Курс {} → {} неизвестен", fromCurrency, toCurrency);
+            return null;
+        }
+        return from.divide(to, MoneyMath.RATE_SCALE, RoundingMode.HALF_UP);
+    }
+
+    private BigDecimal storedRubRate(String currency) {
+        if ("RUB".equals(currency)) {
             return BigDecimal.ONE;
         }
+        ExchangeRate stored = exchangeRateDAO.getRate(currency, "RUB");
+        return stored != null ? stored.getRate() : null;
+    }
+
+    public RateSnapshot getSnapshot() {
+        return snapshot.get();
+    }
 
-        // конвертация в рубли
-        if ("RUB".equals(toCurrency)) {
-            BigDecimal directRate = getRateFromCB(fromCurrency);
-            if (directRate != null) {
-                ExchangeRate rate = new ExchangeRate();
-                rate.setFrom_currency(fromCurrency);
-                rate.setTo_currency("RUB");
-                rate.setRate(directRate);
-                rate.setLast_updated(LocalDateTime.now());
-                exchangeRateDAO.saveRate(fromCurrency, "RUB", directRate);
-                return directRate;
+    // Валюта, курс которой можно получить: рубль, валюта текущего снимка или документа ЦБ.
+    // Операции в других валютах не принимаются — по ним нельзя посчитать ни баланс, ни отчёт.
+    public boolean isKnownCurrency(String currency) {
+        return "RUB".equals(currency) || snapshot.get().contains(currency) || RateSnapshot.CBR_CURRENCIES.contains(currency);
+    }
+
+    // Курс from → to, действовавший на дату; без истории по одной из валют — текущий курс (null — курса нет)
+    public BigDecimal getRate(String fromCurrency, String toCurrency, LocalDate date) {
+        long micros = getHistory().rateMicros(fromCurrency, toCurrency, (int) date.toEpochDay());
+        return micros != Long.MIN_VALUE ? BigDecimal.valueOf(micros, MoneyMath.RATE_SCALE) : getRate(fromCurrency, toCurrency);
+    }
+
+    public long getRatesVersion() {
+        return ratesVersion.get();
+    }
+
+    public RateHistory getHistory() {
+        RateHistory current = history;
+        if (current == null) {
+            synchronized (this) {
+                current = history;
+                if (current == null) {
+                    current = loadHistory();
+                    history = current;
+                }
             }
         }
+        return current;
+    }
 
-        // конвертация из рубля
-        if ("RUB".equals(fromCurrency)) {
-            BigDecimal toCurrencyRate = getRateFromCB(toCurrency); // 1 USD = X RUB
-            if (toCurrencyRate != null && toCurrencyRate.compareTo(BigDecimal.ZERO) > 0) {
-                BigDecimal reverseRate = BigDecimal.ONE.divide(toCurrencyRate, 6, RoundingMode.HALF_UP);
-                exchangeRateDAO.saveRate("RUB", toCurrency, reverseRate);
-                return reverseRate;
+    // Загрузка архива ежедневных документов ЦБ (daily_json.js и *.json, в том числе во вложенных папках,
+    // как в архиве cbr-xml-daily.ru/archive/ГГГГ/ММ/ДД/). Файлы без даты или раздела Valute пропускаются.
+    // Возвращает число загруженных дней.
+    public int backfillHistory(Path archiveDir) throws IOException {
+        long start = System.nanoTime();
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(archiveDir)) {
+            files = walk.filter(Files::isRegularFile)
+                    .filter(p -> p.getFileName().toString().endsWith(".js") || p.getFileName().toString().endsWith(".json"))
+                    .sorted()
+                    .toList();
+        }
+
+        int days = 0;
+        int rates = 0;
+        Map<LocalDate, Map<String, BigDecimal>> chunk = new TreeMap<>();
+        for (Path file : files) {
+            try (InputStream in = Files.newInputStream(file)) {
+                RateSnapshot daily = CbrRateProvider.parseDaily(in, null);
+                if (daily.getRateDate() == null) {
+                    log.warn("В файле {} нет даты курсов, пропущен", file);
+                    continue;
+                }
+                chunk.put(daily.getRateDate(), daily.getRubRates());
+            } catch (IOException | RuntimeException e) {
+                log.warn("Файл архива курсов {} пропущен: {}", file, e.getMessage());
+                continue;
+            }
+            if (chunk.size() == BACKFILL_CHUNK) {
+                days += chunk.size();
+                rates += exchangeRateDAO.saveHistory(chunk);
+                chunk.clear();
             }
         }
+        if (!chunk.isEmpty()) {
+            days += chunk.size();
+            rates += exchangeRateDAO.saveHistory(chunk);
+        }
 
-        // конвертация в других множествах пар
-        BigDecimal fromToRub = getRateFromCB(fromCurrency);
-        BigDecimal toToRub = getRateFromCB(toCurrency);
-        if (fromToRub != null && toToRub != null && toToRub.compareTo(BigDecimal.ZERO) > 0) {
-            BigDecimal rate = fromToRub.divide(toToRub, 6, RoundingMode.HALF_UP);
-            exchangeRateDAO.saveRate(fromCurrency, toCurrency, rate);
-            return rate;
+        synchronized (this) {
+            history = loadHistory();
         }
+        ratesVersion.incrementAndGet();
+        log.info("Загружен архив курсов {}: {} дней, {} курсов за {} мс", archiveDir, days, rates,
+                (System.nanoTime() - start) / 1_000_000);
+        return days;
+    }
 
-        // fallback на БД
-        ExchangeRate cached = exchangeRateDAO.getRate(fromCurrency, toCurrency);
-        if (cached != null) {
-            return cached.getRate();
+    private RateHistory loadHistory() {
+        Map<String, Map<Integer, Long>> points = new HashMap<>();
+        int rows = exchangeRateDAO.loadHistory((currency, epochDay, rateMicros) ->
+                points.computeIfAbsent(currency, c -> new HashMap<>()).put(epochDay, rateMicros));
+        RateHistory loaded = RateHistory.of(points);
+        log.debug("История курсов: {} валют, {} курсов", loaded.getCurrencies().size(), rows);
+        return loaded;
+    }
+
+    // Свежий документ ЦБ — ещё одна точка истории
+    private void appendHistory(RateSnapshot fetched) {
+        if (fetched.getRateDate() == null) {
+            return;
+        }
+        try {
+            exchangeRateDAO.saveHistory(Map.of(fetched.getRateDate(), fetched.getRubRates()));
+            synchronized (this) {
+                if (history != null) {
+                    history = history.withRates(fetched.getRateDate(), fetched.getRubRates());
+                    ratesVersion.incrementAndGet();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Курсы на {} не добавлены в историю", fetched.getRateDate(), e);
         }
+    }
 
-        throw new RuntimeException("Не удалось получить курс " + fromCurrency + " → " + toCurrency);
+    // Состояние предохранителя запросов к ЦБ (CLOSED — сеть доступна)
+    public CircuitBreaker.State getFetchState() {
+        return breaker.getState();
     }
 
-    private BigDecimal getRateFromCB(String currency) {
-        if ("RUB".equals(currency)) {
-            return BigDecimal.ONE;
+    public Duration getFetchRetryDelay() {
+        return breaker.getRetryDelay();
+    }
+
+    private boolean needsRefresh(RateSnapshot current, String currency) {
+        if (current.contains(currency)) {
+            return !current.isFresh(FRESHNESS);
         }
+        Long until = missingCurrencies.get(currency);
+        return until == null || System.nanoTime() - until >= 0;
+    }
 
+    // Загружает свежий документ ЦБ, если снимок не сменился с момента, когда его видел вызывающий.
+    // canServeStale — у вызывающего уже есть нужные курсы: загрузка запускается, но её не ждём.
+    // force — ручное обновление, идёт в сеть даже при открытом предохранителе.
+    private RateSnapshot refresh(RateSnapshot seen, boolean canServeStale, boolean force) {
+        CompletableFuture<RateSnapshot> fetch = fetchShared(seen, force);
+        if (canServeStale && !fetch.isDone()) {
+            return seen;
+        }
+        return fetch.join();
+    }
+
+    // Асинхронное обновление: все, кто попросил во время загрузки, получают один и тот же результат.
+    // При ошибке сети результат — последний известный снимок.
+    public CompletableFuture<RateSnapshot> refreshAsync(boolean force) {
+        return fetchShared(snapshot.get(), force);
+    }
+
+    private CompletableFuture<RateSnapshot> fetchShared(RateSnapshot seen, boolean force) {
+        while (true) {
+            CompletableFuture<RateSnapshot> running = inFlight.get();
+            if (running != null) {
+                return running;
+            }
+            CompletableFuture<RateSnapshot> fetch = new CompletableFuture<>();
+            if (!inFlight.compareAndSet(null, fetch)) {
+                // другой поток только что начал загрузку — присоединяемся к ней
+                continue;
+            }
+            RateSnapshot current = snapshot.get();
+            // снимок уже обновили, пока мы собирались, или сеть недоступна — сразу отдаём последние курсы.
+            // Предохранитель проверяется только победителем гонки, иначе пробный запрос HALF_OPEN мог бы потеряться.
+            if (current != seen || (!force && !breaker.tryAcquire())) {
+                finish(fetch, current);
+                return fetch;
+            }
+            try {
+                refreshExecutor.execute(() -> finish(fetch, fetch(current)));
+            } catch (RejectedExecutionException e) {
+                // сервис закрыт
+                finish(fetch, current);
+            }
+            return fetch;
+        }
+    }
+
+    // Сначала освобождаем слот, затем отдаём результат: обработчики результата могут сразу запросить новую загрузку
+    private void finish(CompletableFuture<RateSnapshot> fetch, RateSnapshot result) {
+        inFlight.compareAndSet(fetch, null);
+        fetch.complete(result);
+    }
+
+    // Опрос всех источников сразу: берётся первый пришедший годный ответ, остальные запросы отменяются.
+    // Ответ позже срока источника (от начала опроса) не принимается; ошибки и пустые ответы пропускаются.
+    private RateSnapshot fetch(RateSnapshot current) {
+        long start = System.nanoTime();
+        CompletionService<RateSnapshot> answers = new ExecutorCompletionService<>(providerExecutor);
+        // ещё не ответившие источники
+        Map<Future<RateSnapshot>, RateProvider> pending = new HashMap<>();
         try {
-            // берем из кэша за последние 24 часа
-            ExchangeRate cached = exchangeRateDAO.getRate(currency, "RUB");
-            if (cached != null && isRateFresh(cached)) {
-                return cached.getRate();
-            }
-
-            // основной API запрос к центробанку
-            URL url = new URL(CB_API_URL);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-            conn.setConnectTimeout(10000);
-            conn.setReadTimeout(10000);
-
-            conn.setRequestProperty("User-Agent", "Mozilla/5.0");
-            conn.setRequestProperty("Accept", "application/json");
-
-            int responseCode = conn.getResponseCode();
-
-            if (responseCode == 200) {
-                try (BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()))) {
-                    StringBuilder response = new StringBuilder();
-                    String line;
-                    while ((line = in.readLine()) != null) {
-                        response.append(line);
+            long wait = 0;
+            for (RateProvider provider : providers) {
+                pending.put(answers.submit(() -> provider.fetch(current)), provider);
+                wait = Math.max(wait, provider.deadline().toNanos());
+            }
+            while (!pending.isEmpty()) {
+                Future<RateSnapshot> done = answers.poll(Math.max(wait - (System.nanoTime() - start), 0), TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    break;
+                }
+                RateProvider provider = pending.remove(done);
+                if (System.nanoTime() - start > provider.deadline().toNanos()) {
+                    log.warn("Источник курсов {} ответил позже срока {} мс", provider.name(), provider.deadline().toMillis());
+                    continue;
+                }
+                try {
+                    RateSnapshot answer = done.get();
+                    if (answer == null && current != RateSnapshot.EMPTY) {
+                        breaker.onSuccess();
+                        return renew(current, provider);
                     }
-
-                    ObjectMapper mapper = new ObjectMapper();
-                    JsonNode root = mapper.readTree(response.toString());
-                    JsonNode valute = root.get("Valute");
-
-                    // Используем правильные коды валют
-                    String currencyCode = currency;
-                    if ("USD".equals(currency)) currencyCode = "USD";
-                    if ("EUR".equals(currency)) currencyCode = "EUR";
-
-                    if (valute.has(currencyCode)) {
-                        JsonNode currencyNode = valute.get(currencyCode);
-                        BigDecimal rate = new BigDecimal(currencyNode.get("Value").asText())
-                                .divide(new BigDecimal(currencyNode.get("Nominal").asText()), 6, RoundingMode.HALF_UP);
-
-                        log.info("Получен курс {} → RUB: {}", currency, rate);
-                        return rate;
-                    } else {
-                        log.warn("Валюта {} не найдена в ответе ЦБ", currency);
-                        // Возвращаем кэшированное значение
-                        return cached != null ? cached.getRate() : BigDecimal.ONE;
+                    if (answer != null && !answer.getCurrencies().isEmpty()) {
+                        breaker.onSuccess();
+                        return install(answer, provider);
                     }
+                    log.warn("Источник курсов {} вернул пустой ответ", provider.name());
+                } catch (ExecutionException e) {
+                    log.warn("Источник курсов {} недоступен: {}", provider.name(), e.getCause().toString());
                 }
-            } else {
-                log.warn("Ошибка HTTP {} при запросе к ЦБ", responseCode);
-                return cached != null ? cached.getRate() : BigDecimal.ONE;
             }
-        } catch (Exception e) {
-            log.error("Ошибка при запросе к ЦБ для {}", currency, e);
-            ExchangeRate cached = exchangeRateDAO.getRate(currency, "RUB");
-            return cached != null ? cached.getRate() : BigDecimal.ONE;
+            for (RateProvider provider : pending.values()) {
+                log.warn("Источник курсов {} не ответил за {} мс", provider.name(), provider.deadline().toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // сервис закрыт или ошибка сохранения
+            log.error("Ошибка при обновлении курсов", e);
+        } finally {
+            // проигравшие и опоздавшие источники больше не нужны
+            pending.keySet().forEach(answer -> answer.cancel(true));
         }
+        breaker.onFailure();
+        log.error("Ни один источник курсов не ответил, используем сохранённые курсы");
+        return current;
     }
 
-    // проверка на актуальность по времени
-    private boolean isRateFresh(ExchangeRate rate) {
-        if (rate.getLast_updated() == null) return false;
-        long hours = java.time.Duration.between(rate.getLast_updated(), LocalDateTime.now()).toHours();
-        return hours < 24;
+    private RateSnapshot install(RateSnapshot fetched, RateProvider provider) {
+        snapshot.set(fetched);
+        ratesVersion.incrementAndGet();
+        exchangeRateDAO.saveRubRates(fetched.getRubRates(), fetched.getFetchedAt());
+        appendHistory(fetched);
+        log.info("Получены курсы на {} ({}): {} валют", fetched.getRateDate(), provider.name(), fetched.getCurrencies().size());
+        publish(fetched);
+        return fetched;
     }
 
-    public void refreshAllRates(String mainCurrency) {
-        if (!"RUB".equals(mainCurrency)) {
-            log.warn("Основная валюта не RUB — автообновление отключено");
-            return;
+    // Источник подтвердил, что курсы не изменились — те же курсы снова считаются свежими
+    private RateSnapshot renew(RateSnapshot current, RateProvider provider) {
+        RateSnapshot renewed = current.renewed(LocalDateTime.now());
+        snapshot.set(renewed);
+        ratesVersion.incrementAndGet();
+        exchangeRateDAO.saveRubRates(renewed.getRubRates(), renewed.getFetchedAt());
+        log.info("Курсы на {} не изменились ({})", renewed.getRateDate(), provider.name());
+        publish(renewed);
+        return renewed;
+    }
+
+    // Свежий документ ЦБ не содержит валюту — не запрашиваем её снова до истечения TTL
+    private void rememberIfMissing(RateSnapshot current, String currency) {
+        if (!current.contains(currency) && current.isFresh(FRESHNESS)) {
+            if (missingCurrencies.put(currency, System.nanoTime() + MISSING_CURRENCY_TTL_NANOS) == null) {
+                log.warn("Валюта {} не найдена в ответе ЦБ", currency);
+            }
         }
+    }
 
-        List<String> currencies = Arrays.asList("USD", "EUR");
-        for (String curr : currencies) {
-            try {
-                BigDecimal rubRate = getRateFromCB(curr); // 1 USD = X RUB
-                if (rubRate != null) {
-                    exchangeRateDAO.saveRate(curr, "RUB", rubRate);
-                    BigDecimal reverse = BigDecimal.ONE.divide(rubRate, 6, RoundingMode.HALF_UP);
-                    exchangeRateDAO.saveRate("RUB", curr, reverse);
-                    log.info("Обновлён курс: {} → RUB = {}", curr, rubRate);
+    // Снимок из таблицы EXCHANGE_RATES — чтобы работать офлайн сразу после запуска
+    private RateSnapshot loadSavedSnapshot() {
+        List<ExchangeRate> saved = exchangeRateDAO.getAllToRub();
+        if (saved.isEmpty()) {
+            return RateSnapshot.EMPTY;
+        }
+        Map<String, BigDecimal> rates = new HashMap<>();
+        LocalDateTime oldest = null;
+        for (ExchangeRate rate : saved) {
+            rates.put(rate.getFrom_currency(), rate.getRate());
+            if (oldest == null || rate.getLast_updated().isBefore(oldest)) {
+                oldest = rate.getLast_updated();
+            }
+        }
+        return new RateSnapshot(rates, null, oldest);
+    }
+
+    // == ФОНОВОЕ ОБНОВЛЕНИЕ ==
+    // Получатель вызывается на потоке загрузки после каждого нового снимка (и после подтверждения, что курсы не изменились)
+    public void addListener(Consumer<RateSnapshot> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<RateSnapshot> listener) {
+        listeners.remove(listener);
+    }
+
+    // Обновление сразу при запуске, затем — когда курсы устаревают (24 ч); после ошибки — повторы с растущей паузой.
+    // trackedCurrencies — валюты, курсы которых нужны приложению: об отсутствующих в ответе пишется в журнал.
+    public void startBackgroundRefresh(Supplier<? extends Collection<String>> trackedCurrencies) {
+        refreshExecutor.execute(() -> {
+            if (background) {
+                return;
+            }
+            this.trackedCurrencies = trackedCurrencies;
+            background = true;
+            log.info("Фоновое обновление курсов запущено");
+            backgroundRefresh();
+        });
+    }
+
+    private void backgroundRefresh() {
+        refreshAsync(true).thenAcceptAsync(this::scheduleNext, refreshExecutor);
+    }
+
+    private void scheduleNext(RateSnapshot result) {
+        long delayNanos;
+        if (result.isFresh(FRESHNESS)) {
+            failedAttempts = 0;
+            checkTracked(result);
+            Duration left = Duration.between(LocalDateTime.now(), result.getFetchedAt().plus(FRESHNESS));
+            delayNanos = Math.max(left.toNanos(), 0) + ThreadLocalRandom.current().nextLong(SCHEDULE_JITTER.toNanos());
+        } else {
+            failedAttempts++;
+            long backoff = RETRY_BASE.toNanos() << Math.min(failedAttempts - 1, 20);
+            double jitter = 1 + ThreadLocalRandom.current().nextDouble(-RETRY_JITTER, RETRY_JITTER);
+            delayNanos = (long) (Math.min(backoff, RETRY_MAX.toNanos()) * jitter);
+        }
+        try {
+            refreshExecutor.schedule(this::backgroundRefresh, delayNanos, TimeUnit.NANOSECONDS);
+            log.debug("Следующее обновление курсов через {} мин", TimeUnit.NANOSECONDS.toMinutes(delayNanos));
+        } catch (RejectedExecutionException e) {
+            // сервис закрыт
+        }
+    }
+
+    private void checkTracked(RateSnapshot result) {
+        try {
+            for (String currency : trackedCurrencies.get()) {
+                if (!"RUB".equals(currency)) {
+                    rememberIfMissing(result, currency);
                 }
-            } catch (Exception e) {
-                log.warn("Не удалось обновить курс для {}", curr, e);
             }
+        } catch (RuntimeException e) {
+            log.warn("Не удалось получить список используемых валют", e);
+        }
+    }
+
+    private void publish(RateSnapshot published) {
+        for (Consumer<RateSnapshot> listener : listeners) {
+            try {
+                listener.accept(published);
+            } catch (RuntimeException e) {
+                log.error("Ошибка получателя новых курсов", e);
+            }
+        }
+    }
+
+    public void refreshAllRates(String mainCurrency) {
+        RateSnapshot refreshed = refresh(snapshot.get(), false, true);
+        if (!refreshed.contains(mainCurrency)) {
+            log.warn("Курс основной валюты {} недоступен", mainCurrency);
+        }
+    }
+
+    // Останавливает поток загрузки: запланированные обновления отменяются, выполняющееся дорабатывает
+    // (с сохранением курсов в БД) не дольше CLOSE_TIMEOUT_SECONDS, затем прерывается вместе с опросом источников
+    @Override
+    public void close() {
+        refreshExecutor.shutdown();
+        try {
+            if (!refreshExecutor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Обновление курсов не завершилось за {} с, прерываем", CLOSE_TIMEOUT_SECONDS);
+                refreshExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            refreshExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            providerExecutor.shutdownNow();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,116 @@
+package org.example.financetracker.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Курсы из папки с сохранёнными снимками: документы ЦБ (*.js, *.json) или CSV "валюта,курс к рублю"
+// (также "валюта;курс" с десятичной запятой, строка заголовка пропускается).
+// Берётся самый новый файл — последний по пути, поэтому имена с датой ГГГГ-ММ-ДД или папки ГГГГ/ММ/ДД
+// упорядочены сами. Дата курсов CSV — из имени файла, иначе дата изменения файла.
+public class FileRateProvider implements RateProvider {
+    private static final Logger log = LoggerFactory.getLogger(FileRateProvider.class);
+    private static final Pattern DATE_IN_NAME = Pattern.compile("(\\d{4}-\\d{2}-\\d{2})");
+
+    private final Path directory;
+
+    public FileRateProvider(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public String name() {
+        return "файлы " + directory;
+    }
+
+    @Override
+    public RateSnapshot fetch(RateSnapshot current) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            files = walk.filter(Files::isRegularFile)
+                    .filter(FileRateProvider::isSnapshotFile)
+                    .sorted(Comparator.reverseOrder())
+                    .toList();
+        }
+        for (Path file : files) {
+            try {
+                RateSnapshot saved = read(file);
+                if (!saved.getCurrencies().isEmpty()) {
+                    return saved;
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Файл курсов {} пропущен: {}", file, e.getMessage());
+            }
+        }
+        throw new IOException("В папке " + directory + " нет файлов с курсами");
+    }
+
+    private static boolean isSnapshotFile(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(".js") || name.endsWith(".json") || name.endsWith(".csv");
+    }
+
+    private static RateSnapshot read(Path file) throws IOException {
+        if (!file.getFileName().toString().endsWith(".csv")) {
+            try (InputStream in = Files.newInputStream(file)) {
+                return CbrRateProvider.parseDaily(in, fileDate(file));
+            }
+        }
+        Map<String, BigDecimal> rates = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                boolean semicolon = line.indexOf(';') >= 0;
+                String[] parts = line.split(semicolon ? ";" : ",");
+                if (parts.length < 2) {
+                    continue;
+                }
+                String currency = parts[0].trim().toUpperCase();
+                String value = parts[1].trim();
+                if (semicolon) {
+                    value = value.replace(',', '.');
+                }
+                if (currency.length() != 3 || value.isEmpty() || !Character.isDigit(value.charAt(0))) {
+                    // заголовок или мусор
+                    continue;
+                }
+                BigDecimal rate = new BigDecimal(value);
+                if (rate.signum() > 0 && !"RUB".equals(currency)) {
+                    rates.put(currency, rate.setScale(6, RoundingMode.HALF_UP));
+                }
+            }
+        }
+        return new RateSnapshot(rates, fileDate(file), LocalDateTime.now());
+    }
+
+    private static LocalDate fileDate(Path file) throws IOException {
+        Matcher matcher = DATE_IN_NAME.matcher(file.getFileName().toString());
+        if (matcher.find()) {
+            return LocalDate.parse(matcher.group(1));
+        }
+        return LocalDate.ofInstant(Files.getLastModifiedTime(file).toInstant(), ZoneId.systemDefault());
+    }
+
+    @Override
+    public String toString() {
+        return "FileRateProvider{" + directory + "}";
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.financetracker.service;
+
+import java.time.Duration;
+
+// Итог импорта выписки
+public final class ImportResult {
+    private final long rowsImported;
+    private final long rowsResumed;
+    private final long rowsRejected;
+    private final Duration elapsed;
+
+    public ImportResult(long rowsImported, long rowsResumed, long rowsRejected, Duration elapsed) {
+        this.rowsImported = rowsImported;
+        this.rowsResumed = rowsResumed;
+        this.rowsRejected = rowsRejected;
+        this.elapsed = elapsed;
+    }
+
+    // == ГЕТТЕРЫ ==
+    public long getRowsImported() {return rowsImported;}
+    // строки, пропущенные как уже импортированные прошлым (прерванным) запуском
+    public long getRowsResumed() {return rowsResumed;}
+    public long getRowsRejected() {return rowsRejected;}
+    public Duration getElapsed() {return elapsed;}
+
+    public double getRowsPerSecond() {
+        long millis = Math.max(1, elapsed.toMillis());
+        return rowsImported * 1000.0 / millis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ImportResult{imported=%d, resumed=%d, rejected=%d, elapsed=%d ms, %.0f строк/с}",
+                rowsImported, rowsResumed, rowsRejected, elapsed.toMillis(), getRowsPerSecond());
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.financetracker.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Денежная арифметика в фиксированной точке на long, без создания объектов.
+// Сумма — в копейках (DECIMAL(15,2)), курс — в миллионных (DECIMAL(18,6)).
+// Округление как у amount.multiply(rate).setScale(2, HALF_UP): половина — от нуля.
+// Переполнение не теряется: умножение проверяется через Math.multiplyHigh и при выходе за long
+// считается через BigDecimal, сложение — Math.addExact (ArithmeticException при переполнении).
+public final class MoneyMath {
+    public static final int AMOUNT_SCALE = 2;
+    public static final int RATE_SCALE = 6;
+    private static final long RATE_ONE = 1_000_000L;
+    private static final long HALF_RATE_ONE = RATE_ONE / 2;
+
+    private MoneyMath() {
+    }
+
+    // Сумма в копейках; больше двух знаков после запятой округляется, как при записи в DECIMAL(15,2)
+    public static long toMinor(BigDecimal amount) {
+        return amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromMinor(long minor) {
+        return BigDecimal.valueOf(minor, AMOUNT_SCALE);
+    }
+
+    // Курс в миллионных; Long.MIN_VALUE, если курс точнее шести знаков или не помещается в long
+    public static long toRateMicros(BigDecimal rate) {
+        if (rate.scale() > RATE_SCALE) {
+            rate = rate.stripTrailingZeros();
+            if (rate.scale() > RATE_SCALE) {
+                return Long.MIN_VALUE;
+            }
+        }
+        BigDecimal micros = rate.setScale(RATE_SCALE);
+        return micros.unscaledValue().bitLength() < Long.SIZE ? micros.unscaledValue().longValue() : Long.MIN_VALUE;
+    }
+
+    // minor * rate / 10^6 с округлением HALF_UP
+    public static long convert(long minor, long rateMicros) {
+        long low = minor * rateMicros;
+        long high = Math.multiplyHigh(minor, rateMicros);
+        if (high != (low >> 63)) {
+            // произведение не помещается в 64 бита — точный, но медленный путь
+            return BigDecimal.valueOf(minor).multiply(BigDecimal.valueOf(rateMicros))
+                    .divide(BigDecimal.valueOf(RATE_ONE), 0, RoundingMode.HALF_UP)
+                    .longValueExact();
+        }
+        long quotient = low / RATE_ONE;
+        long remainder = low % RATE_ONE;
+        if (Math.abs(remainder) >= HALF_RATE_ONE) {
+            quotient += Long.signum(low);
+        }
+        return quotient;
+    }
+
+    // Конвертация по курсу BigDecimal: быстрый путь, если курс укладывается в шесть знаков
+    public static long convert(long minor, BigDecimal rate) {
+        long rateMicros = toRateMicros(rate);
+        if (rateMicros != Long.MIN_VALUE) {
+            return convert(minor, rateMicros);
+        }
+        return toMinor(fromMinor(minor).multiply(rate));
+    }
+
+    // Кросс-курс from/to в миллионных (оба курса к одной валюте) с округлением HALF_UP, как divide(.., 6, HALF_UP)
+    public static long divideRates(long fromMicros, long toMicros) {
+        long high = Math.multiplyHigh(fromMicros, RATE_ONE);
+        long low = fromMicros * RATE_ONE;
+        if (high != (low >> 63)) {
+            return BigDecimal.valueOf(fromMicros)
+                    .divide(BigDecimal.valueOf(toMicros), RATE_SCALE, RoundingMode.HALF_UP)
+                    .unscaledValue().longValueExact();
+        }
+        long quotient = low / toMicros;
+        long remainder = low % toMicros;
+        // остаток >= половины делителя; без удвоения остатка, которое переполняет long при делителе больше 2^62
+        if (Math.abs(remainder) >= Math.abs(toMicros) - Math.abs(remainder)) {
+            quotient += Long.signum(low) * Long.signum(toMicros);
+        }
+        return quotient;
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+}
@@ -0,0 +1,125 @@
+package org.example.financetracker.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+// OFX-выписка (SGML 1.x и XML 2.x): читаем поток тегов и собираем блоки <STMTTRN>.
+// Закрывающие теги у листовых элементов необязательны, как и допускает OFX 1.x.
+class OfxStatementReader implements StatementReader {
+    private static final DateTimeFormatter OFX_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final Reader reader;
+    private final StringBuilder buffer = new StringBuilder();
+    private String defaultCurrency;
+    private int pushedBack = -1;
+    private long transactionNumber;
+
+    OfxStatementReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public StatementRecord next() throws IOException {
+        String tag;
+        while ((tag = nextTag()) != null) {
+            if ("CURDEF".equals(tag)) {
+                defaultCurrency = readValue().toUpperCase(Locale.ROOT);
+            } else if ("STMTTRN".equals(tag)) {
+                return readTransaction();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private StatementRecord readTransaction() throws IOException {
+        transactionNumber++;
+        String posted = null, amount = null, name = null, memo = null, currency = null;
+        String tag;
+        while ((tag = nextTag()) != null && !"/STMTTRN".equals(tag)) {
+            switch (tag) {
+                case "DTPOSTED" -> posted = readValue();
+                case "TRNAMT" -> amount = readValue();
+                case "NAME" -> name = readValue();
+                case "MEMO" -> memo = readValue();
+                case "CURSYM", "CURRENCY" -> {
+                    // в <CURRENCY> вложен <CURSYM>; у листового варианта значение идёт сразу
+                    String value = readValue();
+                    if (!value.isEmpty()) {
+                        currency = value.toUpperCase(Locale.ROOT);
+                    }
+                }
+                default -> readValue();
+            }
+        }
+        if (posted == null || amount == null) {
+            throw new IllegalArgumentException("Операция " + transactionNumber + ": нет DTPOSTED или TRNAMT");
+        }
+        try {
+            // дата вида 20240131[120000[.000][-3:MSK]] — берём первые 8 символов
+            LocalDate date = LocalDate.parse(posted.substring(0, Math.min(8, posted.length())), OFX_DATE);
+            String title = name != null && !name.isEmpty() ? name : memo;
+            return new StatementRecord(date, title, new BigDecimal(amount.replace(',', '.')),
+                    currency != null ? currency : defaultCurrency, null);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Операция " + transactionNumber + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Имя следующего тега (для закрывающего — с '/'), null в конце файла
+    private String nextTag() throws IOException {
+        int ch;
+        while ((ch = read()) != -1 && ch != '<') {
+            // текст вне ожидаемых тегов пропускаем
+        }
+        if (ch == -1) {
+            return null;
+        }
+        buffer.setLength(0);
+        while ((ch = read()) != -1 && ch != '>') {
+            buffer.append((char) ch);
+        }
+        String tag = buffer.toString().trim();
+        int space = tag.indexOf(' ');
+        return (space > 0 ? tag.substring(0, space) : tag).toUpperCase(Locale.ROOT);
+    }
+
+    // Текст до следующего '<' (сам '<' возвращается в поток)
+    private String readValue() throws IOException {
+        buffer.setLength(0);
+        int ch;
+        while ((ch = read()) != -1 && ch != '<') {
+            buffer.append((char) ch);
+        }
+        if (ch == '<') {
+            pushedBack = ch;
+        }
+        return unescape(buffer.toString().trim());
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -1) {
+            int ch = pushedBack;
+            pushedBack = -1;
+            return ch;
+        }
+        return reader.read();
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('&') < 0) {
+            return value;
+        }
+        return value.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"")
+                .replace("&apos;", "'").replace("&amp;", "&");
+    }
+}
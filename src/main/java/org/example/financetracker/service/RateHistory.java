@@ -0,0 +1,140 @@
+package org.example.financetracker.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Неизменяемая история курсов ЦБ к рублю по дням. По каждой валюте — плотный массив курсов (в миллионных)
+// на каждый день от первой до последней известной даты: дни без курса (выходные, праздники) заполнены
+// последним опубликованным курсом. Курс на дату — одно чтение массива, без поиска и без BigDecimal.
+// Рядом хранятся сами опубликованные точки — из них массив пересобирается при добавлении новых дней.
+public final class RateHistory {
+    public static final RateHistory EMPTY = new RateHistory(Map.of());
+    private static final long RUB_MICROS = 1_000_000L;
+
+    private final Map<String, Series> series;
+
+    private record Series(int[] points, long[] pointRates, int firstDay, long[] daily) {
+
+        static Series of(int[] points, long[] pointRates) {
+            int firstDay = points[0];
+            long[] daily = new long[points[points.length - 1] - firstDay + 1];
+            for (int i = 0; i < points.length; i++) {
+                int to = i + 1 < points.length ? points[i + 1] : points[i] + 1;
+                Arrays.fill(daily, points[i] - firstDay, to - firstDay, pointRates[i]);
+            }
+            return new Series(points, pointRates, firstDay, daily);
+        }
+
+        // До первой даты — самый ранний курс, после последней — последний
+        long at(int epochDay) {
+            int offset = epochDay - firstDay;
+            if (offset < 0) {
+                return daily[0];
+            }
+            return daily[Math.min(offset, daily.length - 1)];
+        }
+    }
+
+    private RateHistory(Map<String, Series> series) {
+        this.series = series;
+    }
+
+    // Сборка из точек (валюта → день → курс к рублю в миллионных), порядок не важен
+    public static RateHistory of(Map<String, ? extends Map<Integer, Long>> points) {
+        Map<String, Series> series = new HashMap<>();
+        points.forEach((currency, byDay) -> {
+            if (!byDay.isEmpty()) {
+                series.put(currency, toSeries(byDay));
+            }
+        });
+        return new RateHistory(Map.copyOf(series));
+    }
+
+    // Новая история с добавленными курсами на дату (повторная дата заменяет курс)
+    public RateHistory withRates(LocalDate date, Map<String, BigDecimal> rubRates) {
+        int day = (int) date.toEpochDay();
+        Map<String, Series> next = new HashMap<>(series);
+        rubRates.forEach((currency, rate) -> {
+            long micros = MoneyMath.toRateMicros(rate);
+            if ("RUB".equals(currency) || micros <= 0) {
+                return;
+            }
+            Map<Integer, Long> byDay = new HashMap<>();
+            Series old = series.get(currency);
+            if (old != null) {
+                for (int i = 0; i < old.points.length; i++) {
+                    byDay.put(old.points[i], old.pointRates[i]);
+                }
+            }
+            byDay.put(day, micros);
+            next.put(currency, toSeries(byDay));
+        });
+        return new RateHistory(Map.copyOf(next));
+    }
+
+    private static Series toSeries(Map<Integer, Long> byDay) {
+        int[] points = byDay.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        long[] rates = new long[points.length];
+        for (int i = 0; i < points.length; i++) {
+            rates[i] = byDay.get(points[i]);
+        }
+        return Series.of(points, rates);
+    }
+
+    // История обеих валют начинается не позже дня epochDay — курсы на даты операций с этого дня настоящие,
+    // а не растянутый назад первый известный курс
+    public boolean spans(String fromCurrency, String toCurrency, int epochDay) {
+        return startsBy(fromCurrency, epochDay) && startsBy(toCurrency, epochDay);
+    }
+
+    private boolean startsBy(String currency, int epochDay) {
+        if ("RUB".equals(currency)) {
+            return true;
+        }
+        Series s = series.get(currency);
+        return s != null && s.firstDay <= epochDay;
+    }
+
+    // Курс from → to на день epochDay в миллионных; Long.MIN_VALUE, если истории нет
+    public long rateMicros(String fromCurrency, String toCurrency, int epochDay) {
+        if (fromCurrency.equals(toCurrency)) {
+            return RUB_MICROS;
+        }
+        long from = rubMicros(fromCurrency, epochDay);
+        long to = rubMicros(toCurrency, epochDay);
+        if (from == Long.MIN_VALUE || to == Long.MIN_VALUE) {
+            return Long.MIN_VALUE;
+        }
+        return "RUB".equals(toCurrency) ? from : MoneyMath.divideRates(from, to);
+    }
+
+    private long rubMicros(String currency, int epochDay) {
+        if ("RUB".equals(currency)) {
+            return RUB_MICROS;
+        }
+        Series s = series.get(currency);
+        return s != null ? s.at(epochDay) : Long.MIN_VALUE;
+    }
+
+    public Set<String> getCurrencies() {
+        return series.keySet();
+    }
+
+    // Число опубликованных курсов по всем валютам
+    public int size() {
+        return series.values().stream().mapToInt(s -> s.points.length).sum();
+    }
+
+    public boolean isEmpty() {
+        return series.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RateHistory{currencies=%d, rates=%d}", series.size(), size());
+    }
+}
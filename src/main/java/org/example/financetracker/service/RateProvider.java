@@ -0,0 +1,22 @@
+package org.example.financetracker.service;
+
+import java.time.Duration;
+
+// Источник курсов к рублю для ExchangeRateService. Все источники опрашиваются параллельно;
+// берётся первый пришедший годный ответ (не позже срока своего источника), остальные запросы отменяются,
+// так что недоступный источник не задерживает обновление, если ответил другой.
+// Сторонние источники подключаются через ServiceLoader (нужен конструктор без аргументов).
+public interface RateProvider {
+
+    // Имя для журнала
+    String name();
+
+    // Сколько ждать ответа с начала опроса
+    default Duration deadline() {
+        return Duration.ofSeconds(10);
+    }
+
+    // Свежие курсы; null — источник подтвердил, что курсы current не изменились (HTTP 304).
+    // Нет ответа — исключение. Вызывается не более чем из одного потока одновременно.
+    RateSnapshot fetch(RateSnapshot current) throws Exception;
+}
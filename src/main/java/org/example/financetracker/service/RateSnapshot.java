@@ -0,0 +1,166 @@
+package org.example.financetracker.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Неизменяемый снимок курсов ЦБ: сколько рублей стоит одна единица каждой валюты.
+// Подменяется целиком, поэтому читатели никогда не видят наполовину обновлённые данные.
+// При создании строится матрица кросс-курсов N×N по всем валютам снимка: getRate — два поиска индекса
+// и чтение массива, без деления BigDecimal на каждый запрос.
+public final class RateSnapshot {
+    public static final RateSnapshot EMPTY = new RateSnapshot(Map.of(), null, null);
+
+    // Валюты ежедневного документа ЦБ — для выбора валюты, пока курсы ещё ни разу не загружены
+    public static final List<String> CBR_CURRENCIES = List.of(
+            "AED", "AMD", "AUD", "AZN", "BGN", "BRL", "BYN", "CAD", "CHF", "CNY", "CZK", "DKK", "EGP", "EUR",
+            "GBP", "GEL", "HKD", "HUF", "IDR", "INR", "JPY", "KGS", "KRW", "KZT", "MDL", "NOK", "NZD", "PLN",
+            "QAR", "RON", "RSD", "SEK", "SGD", "THB", "TJS", "TMT", "TRY", "UAH", "USD", "UZS", "VND", "XDR", "ZAR");
+
+    private final Map<String, BigDecimal> rubRates;
+    private final LocalDate rateDate;
+    private final LocalDateTime fetchedAt;
+    // fetchedAt в миллисекундах эпохи: проверка свежести на каждый getRate без LocalDateTime.now()
+    private final long fetchedAtMillis;
+
+    // == МАТРИЦА КРОСС-КУРСОВ ==
+    // валюта → номер строки/столбца
+    private final Map<String, Integer> currencyIndex;
+    // [from * n + to] — курс from → to (scale 6), на диагонали — 1
+    private final BigDecimal[] matrix;
+    private final long[] matrixMicros;
+
+    public RateSnapshot(Map<String, BigDecimal> rubRates, LocalDate rateDate, LocalDateTime fetchedAt) {
+        Map<String, BigDecimal> copy = new HashMap<>(rubRates);
+        copy.put("RUB", BigDecimal.ONE);
+        this.rubRates = Collections.unmodifiableMap(copy);
+        this.rateDate = rateDate;
+        this.fetchedAt = fetchedAt;
+        this.fetchedAtMillis = fetchedAt != null ? fetchedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+
+        List<String> codes = new ArrayList<>();
+        for (Map.Entry<String, BigDecimal> e : copy.entrySet()) {
+            if (e.getValue() != null && e.getValue().signum() > 0) {
+                codes.add(e.getKey());
+            }
+        }
+        Collections.sort(codes);
+        int n = codes.size();
+        Map<String, Integer> index = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            index.put(codes.get(i), i);
+        }
+        this.currencyIndex = Collections.unmodifiableMap(index);
+        this.matrix = new BigDecimal[n * n];
+        this.matrixMicros = new long[n * n];
+        for (int from = 0; from < n; from++) {
+            for (int to = 0; to < n; to++) {
+                BigDecimal rate = crossRate(codes.get(from), copy.get(codes.get(from)),
+                        codes.get(to), copy.get(codes.get(to)));
+                matrix[from * n + to] = rate;
+                matrixMicros[from * n + to] = MoneyMath.toRateMicros(rate);
+            }
+        }
+    }
+
+    // Те же курсы, подтверждённые источником в fetchedAt (ответ 304): матрица не перестраивается
+    public RateSnapshot renewed(LocalDateTime fetchedAt) {
+        return new RateSnapshot(this, fetchedAt);
+    }
+
+    private RateSnapshot(RateSnapshot source, LocalDateTime fetchedAt) {
+        this.rubRates = source.rubRates;
+        this.rateDate = source.rateDate;
+        this.fetchedAt = fetchedAt;
+        this.fetchedAtMillis = fetchedAt != null ? fetchedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+        this.currencyIndex = source.currencyIndex;
+        this.matrix = source.matrix;
+        this.matrixMicros = source.matrixMicros;
+    }
+
+    // Те же формулы, что и раньше при каждом запросе: через рубль, шесть знаков, HALF_UP
+    private static BigDecimal crossRate(String fromCurrency, BigDecimal fromToRub, String toCurrency, BigDecimal toToRub) {
+        if (fromCurrency.equals(toCurrency)) {
+            return BigDecimal.ONE;
+        }
+        if ("RUB".equals(toCurrency)) {
+            return fromToRub;
+        }
+        if ("RUB".equals(fromCurrency)) {
+            return BigDecimal.ONE.divide(toToRub, 6, RoundingMode.HALF_UP);
+        }
+        return fromToRub.divide(toToRub, 6, RoundingMode.HALF_UP);
+    }
+
+    // Курс from → to; null, если одной из валют нет в снимке
+    public BigDecimal getRate(String fromCurrency, String toCurrency) {
+        if (fromCurrency.equals(toCurrency)) {
+            return BigDecimal.ONE;
+        }
+        int from = indexOf(fromCurrency);
+        int to = indexOf(toCurrency);
+        return from >= 0 && to >= 0 ? matrix[from * currencyIndex.size() + to] : null;
+    }
+
+    // Номер валюты в матрице; -1, если валюты нет в снимке
+    public int indexOf(String currency) {
+        Integer index = currencyIndex.get(currency);
+        return index != null ? index : -1;
+    }
+
+    // Курс по номерам валют (см. indexOf) — для циклов по многим суммам
+    public BigDecimal getRate(int fromIndex, int toIndex) {
+        return matrix[fromIndex * currencyIndex.size() + toIndex];
+    }
+
+    // То же в миллионных (Long.MIN_VALUE, если курс точнее шести знаков)
+    public long getRateMicros(int fromIndex, int toIndex) {
+        return matrixMicros[fromIndex * currencyIndex.size() + toIndex];
+    }
+
+    // Валюты для выбора в интерфейсе: RUB, затем все известные (из снимка и списка ЦБ) по алфавиту
+    public List<String> currencyList() {
+        TreeSet<String> codes = new TreeSet<>(CBR_CURRENCIES);
+        codes.addAll(currencyIndex.keySet());
+        codes.remove("RUB");
+        List<String> list = new ArrayList<>(codes.size() + 1);
+        list.add("RUB");
+        list.addAll(codes);
+        return list;
+    }
+
+    // Те же разобранные курсы: other — этот снимок или его продление (renewed)
+    public boolean sharesRatesWith(RateSnapshot other) {
+        return rubRates == other.rubRates;
+    }
+
+    public boolean contains(String currency) {
+        return currencyIndex.containsKey(currency);
+    }
+
+    // Актуален ли снимок (курсы ЦБ считаем свежими в течение maxAge)
+    public boolean isFresh(Duration maxAge) {
+        return fetchedAt != null && System.currentTimeMillis() - fetchedAtMillis < maxAge.toMillis();
+    }
+
+    // == ГЕТТЕРЫ ==
+    public Map<String, BigDecimal> getRubRates() {return rubRates;}
+    public Set<String> getCurrencies() {return rubRates.keySet();}
+    public LocalDate getRateDate() {return rateDate;}
+    public LocalDateTime getFetchedAt() {return fetchedAt;}
+
+    @Override
+    public String toString() {
+        return String.format("RateSnapshot{date=%s, fetchedAt=%s, currencies=%d}", rateDate, fetchedAt, rubRates.size());
+    }
+}
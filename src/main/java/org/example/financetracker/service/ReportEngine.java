@@ -0,0 +1,74 @@
+package org.example.financetracker.service;
+
+import org.example.financetracker.db.CategoryDAO;
+import org.example.financetracker.model.Category;
+import org.example.financetracker.model.MonthlyReport;
+import org.example.financetracker.model.MonthlySummary;
+import org.example.financetracker.model.ReportRow;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Отчёт по месяцам и категориям из строк MONTHLY_SUMMARY: суммы по (месяц, категория, валюта)
+// переводятся в основную валюту — по одной конвертации на строку итогов, курс каждой валюты берётся один раз.
+public class ReportEngine {
+    // месяц, затем доходы раньше расходов, затем категория по имени
+    private static final Comparator<ReportRow> ROW_ORDER = Comparator.comparing(ReportRow::getMonth)
+            .thenComparing(ReportRow::getType, Comparator.reverseOrder())
+            .thenComparing(ReportRow::getCategoryName);
+
+    private final ExchangeRateService exchangeRateService;
+    private final CategoryDAO categoryDAO;
+
+    public ReportEngine(ExchangeRateService exchangeRateService, CategoryDAO categoryDAO) {
+        this.exchangeRateService = exchangeRateService;
+        this.categoryDAO = categoryDAO;
+    }
+
+    // Отчёт по строкам MONTHLY_SUMMARY за [from, to]: без обхода истории, по одной конвертации на строку итогов
+    public MonthlyReport build(YearMonth from, YearMonth to, String mainCurrency, List<MonthlySummary> summary) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Конец периода раньше начала: " + from + " > " + to);
+        }
+        Map<String, BigDecimal> rates = new HashMap<>();
+        // (месяц, категория) → сумма в копейках основной валюты
+        Map<MonthlyCell, long[]> cells = new LinkedHashMap<>();
+        for (MonthlySummary s : summary) {
+            long minor = MoneyMath.toMinor(s.getTotal());
+            if (!s.getCurrency().equals(mainCurrency)) {
+                BigDecimal rate = rates.computeIfAbsent(s.getCurrency(),
+                        currency -> exchangeRateService.getRate(currency, mainCurrency));
+                // без известного курса строка в отчёт не входит (ExchangeRateService пишет об этом в журнал)
+                if (rate == null) {
+                    continue;
+                }
+                minor = MoneyMath.convert(minor, rate);
+            }
+            long[] total = cells.computeIfAbsent(new MonthlyCell(s.getMonth(), s.getCategoryId()), c -> new long[1]);
+            total[0] = MoneyMath.add(total[0], minor);
+        }
+
+        List<ReportRow> rows = new ArrayList<>(cells.size());
+        cells.forEach((cell, total) -> {
+            if (cell.categoryId() == null) {
+                rows.add(new ReportRow(cell.month(), null, "Без категории", "expense", MoneyMath.fromMinor(total[0])));
+                return;
+            }
+            Category cat = categoryDAO.getById(cell.categoryId());
+            String name = cat != null ? cat.getName() : "Категория #" + cell.categoryId();
+            String type = cat != null && "income".equals(cat.getType()) ? "income" : "expense";
+            rows.add(new ReportRow(cell.month(), cell.categoryId(), name, type, MoneyMath.fromMinor(total[0])));
+        });
+        rows.sort(ROW_ORDER);
+        return new MonthlyReport(mainCurrency, from, to, rows);
+    }
+
+    private record MonthlyCell(YearMonth month, Long categoryId) {
+    }
+}
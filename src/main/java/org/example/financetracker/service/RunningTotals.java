@@ -0,0 +1,55 @@
+package org.example.financetracker.service;
+
+import org.example.financetracker.model.CurrencyTotal;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Текущие суммы транзакций по (валюта, тип категории), в копейках.
+// Заполняются один раз из БД и дальше меняются за O(1) без создания объектов при каждой записи.
+class RunningTotals {
+    private final Map<Key, AtomicLong> totals = new ConcurrentHashMap<>();
+
+    void reset(List<CurrencyTotal> seed) {
+        totals.clear();
+        for (CurrencyTotal total : seed) {
+            apply(total.getCurrency(), total.getCategoryType(), MoneyMath.toMinor(total.getAmount()));
+        }
+    }
+
+    void add(String currency, String categoryType, BigDecimal amount) {
+        apply(currency, categoryType, MoneyMath.toMinor(amount));
+    }
+
+    void subtract(String currency, String categoryType, BigDecimal amount) {
+        apply(currency, categoryType, Math.negateExact(MoneyMath.toMinor(amount)));
+    }
+
+    // Обход сумм без копирования: валюта, доход ли, сумма в копейках
+    void forEach(TotalVisitor visitor) {
+        totals.forEach((key, amount) -> visitor.visit(key.currency, key.income, amount.get()));
+    }
+
+    List<CurrencyTotal> snapshot() {
+        List<CurrencyTotal> result = new ArrayList<>(totals.size());
+        forEach((currency, income, minor) ->
+                result.add(new CurrencyTotal(currency, income ? "income" : "expense", MoneyMath.fromMinor(minor))));
+        return result;
+    }
+
+    private void apply(String currency, String categoryType, long minor) {
+        // всё, что не доход, в балансе считается расходом
+        Key key = new Key(currency, "income".equals(categoryType));
+        totals.computeIfAbsent(key, k -> new AtomicLong()).accumulateAndGet(minor, MoneyMath::add);
+    }
+
+    interface TotalVisitor {
+        void visit(String currency, boolean income, long minor);
+    }
+
+    private record Key(String currency, boolean income) {}
+}
@@ -0,0 +1,181 @@
+package org.example.financetracker.service;
+
+import org.example.financetracker.db.CategoryDAO;
+import org.example.financetracker.db.DataSource;
+import org.example.financetracker.db.ImportCheckpointDAO;
+import org.example.financetracker.db.TransactionDAO;
+import org.example.financetracker.model.Category;
+import org.example.financetracker.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+// Импорт банковской выписки: файл читается потоком, строки вставляются пакетами
+// по BATCH_SIZE и коммитятся порциями по COMMIT_SIZE вместе с контрольной точкой.
+// Память ограничена одной порцией независимо от размера файла.
+public class StatementImporter {
+    private static final Logger log = LoggerFactory.getLogger(StatementImporter.class);
+
+    static final int BATCH_SIZE = 1_000;
+    static final int COMMIT_SIZE = 10_000;
+    private static final int MAX_TITLE_LENGTH = 100;
+    private static final int MAX_CATEGORY_LENGTH = 50;
+
+    // Коммит порции; вызывающий может атомарно с коммитом обновить свои кэши
+    public interface CommitHook {
+        void commit(Connection conn, List<Transaction> chunk) throws SQLException;
+    }
+
+    private final TransactionDAO transactionDAO;
+    private final CategoryDAO categoryDAO;
+    private final ImportCheckpointDAO checkpointDAO = new ImportCheckpointDAO();
+    // валюты, по которым есть курс (ExchangeRateService::isKnownCurrency): с другими баланс не посчитать
+    private final Predicate<String> knownCurrency;
+
+    public StatementImporter(TransactionDAO transactionDAO, CategoryDAO categoryDAO, Predicate<String> knownCurrency) {
+        this.transactionDAO = transactionDAO;
+        this.categoryDAO = categoryDAO;
+        this.knownCurrency = knownCurrency;
+    }
+
+    public ImportResult importFile(Path file, String defaultCurrency, CommitHook commitHook) throws IOException {
+        // размер в ключе: изменённый файл не продолжит чужую контрольную точку
+        String source = file.toAbsolutePath().normalize() + "|" + Files.size(file);
+        long start = System.nanoTime();
+
+        long resumed = 0;
+        long consumed = 0;
+        long imported = 0;
+        long rejected = 0;
+
+        try (StatementReader reader = StatementReader.open(file);
+             Connection conn = DataSource.getConnection()) {
+            conn.setAutoCommit(false);
+
+            resumed = checkpointDAO.getRowsDone(conn, source);
+            if (resumed > 0) {
+                log.info("Продолжаем импорт {} с записи {}", file, resumed + 1);
+            }
+
+            List<Transaction> chunk = new ArrayList<>(COMMIT_SIZE);
+            int flushed = 0;
+            while (true) {
+                StatementRecord record;
+                try {
+                    record = reader.next();
+                } catch (IllegalArgumentException e) {
+                    consumed++;
+                    if (consumed > resumed) {
+                        rejected++;
+                        log.warn("Пропущена запись выписки: {}", e.getMessage());
+                    }
+                    continue;
+                }
+                if (record == null) {
+                    break;
+                }
+                consumed++;
+                if (consumed <= resumed) {
+                    continue;
+                }
+
+                Transaction t = toTransaction(record, defaultCurrency);
+                if (t == null) {
+                    rejected++;
+                    continue;
+                }
+                chunk.add(t);
+
+                if (chunk.size() - flushed == BATCH_SIZE) {
+                    transactionDAO.addBatch(conn, chunk.subList(flushed, chunk.size()));
+                    flushed = chunk.size();
+                }
+                if (chunk.size() == COMMIT_SIZE) {
+                    checkpointDAO.save(conn, source, consumed);
+                    commitHook.commit(conn, chunk);
+                    imported += chunk.size();
+                    chunk.clear();
+                    flushed = 0;
+                    logProgress(file, imported, start);
+                }
+            }
+
+            if (flushed < chunk.size()) {
+                transactionDAO.addBatch(conn, chunk.subList(flushed, chunk.size()));
+            }
+            checkpointDAO.clear(conn, source);
+            commitHook.commit(conn, chunk);
+            imported += chunk.size();
+        } catch (SQLException e) {
+            log.error("Ошибка импорта {} после {} записей; повторный запуск продолжит с контрольной точки", file, imported, e);
+            throw new RuntimeException("Failed to import statement " + file, e);
+        }
+
+        ImportResult result = new ImportResult(imported, resumed, rejected, Duration.ofNanos(System.nanoTime() - start));
+        log.info("Импорт {} завершён: {}", file, result);
+        return result;
+    }
+
+    private Transaction toTransaction(StatementRecord record, String defaultCurrency) {
+        if (record.getAmount().signum() == 0) {
+            log.warn("Пропущена операция с нулевой суммой от {}", record.getDate());
+            return null;
+        }
+        String currency = record.getCurrency() != null ? record.getCurrency() : defaultCurrency;
+        if (currency.length() != 3 || !knownCurrency.test(currency)) {
+            log.warn("Пропущена операция с неизвестной валютой '{}' от {}", currency, record.getDate());
+            return null;
+        }
+
+        String type = record.getAmount().signum() > 0 ? "income" : "expense";
+        String categoryName = record.getCategoryName() != null
+                ? record.getCategoryName().trim()
+                : ("income".equals(type) ? "Прочие доходы" : "Прочие расходы");
+        if (categoryName.length() > MAX_CATEGORY_LENGTH) {
+            categoryName = categoryName.substring(0, MAX_CATEGORY_LENGTH);
+        }
+        Category category = resolveCategory(categoryName, type);
+
+        String title = record.getTitle() == null || record.getTitle().isBlank() ? "Без названия" : record.getTitle().trim();
+        if (title.length() > MAX_TITLE_LENGTH) {
+            title = title.substring(0, MAX_TITLE_LENGTH);
+        }
+
+        Transaction t = new Transaction();
+        t.setTitle(title);
+        t.setAmount(record.getAmount().abs());
+        t.setCurrency(currency);
+        t.setTransaction_date(record.getDate());
+        if (category != null) {
+            t.setCategory_id(category.getId());
+            t.setCategory(category);
+        }
+        return t;
+    }
+
+    // Категория из кэша CategoryDAO; недостающая создаётся один раз и сразу попадает в кэш
+    private Category resolveCategory(String name, String type) {
+        Category category = categoryDAO.find(name, type);
+        if (category == null) {
+            category = categoryDAO.add(name, type);
+            if (category == null) {
+                log.warn("Не удалось создать категорию {} ({}), операция будет без категории", name, type);
+            }
+        }
+        return category;
+    }
+
+    private static void logProgress(Path file, long imported, long startNanos) {
+        double seconds = Math.max(1e-3, (System.nanoTime() - startNanos) / 1e9);
+        log.info("Импорт {}: {} строк, {} строк/с", file.getFileName(), imported, Math.round(imported / seconds));
+    }
+}
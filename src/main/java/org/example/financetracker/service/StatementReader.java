@@ -0,0 +1,27 @@
+package org.example.financetracker.service;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+// Потоковое чтение выписки: по одной записи, без загрузки файла целиком
+public interface StatementReader extends Closeable {
+
+    // Следующая запись или null в конце файла.
+    // Некорректная запись — IllegalArgumentException; чтение можно продолжать со следующей.
+    StatementRecord next() throws IOException;
+
+    // Формат определяется по расширению: .ofx/.qfx — OFX, остальное — CSV
+    static StatementReader open(Path file) throws IOException {
+        BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".ofx") || name.endsWith(".qfx")) {
+            return new OfxStatementReader(reader);
+        }
+        return new CsvStatementReader(reader);
+    }
+}
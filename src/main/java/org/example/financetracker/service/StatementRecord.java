@@ -0,0 +1,28 @@
+package org.example.financetracker.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Одна операция из банковской выписки. Сумма со знаком: отрицательная — расход.
+public final class StatementRecord {
+    private final LocalDate date;
+    private final String title;
+    private final BigDecimal amount;
+    private final String currency;
+    private final String categoryName;
+
+    public StatementRecord(LocalDate date, String title, BigDecimal amount, String currency, String categoryName) {
+        this.date = date;
+        this.title = title;
+        this.amount = amount;
+        this.currency = currency;
+        this.categoryName = categoryName;
+    }
+
+    // == ГЕТТЕРЫ ==
+    public LocalDate getDate() {return date;}
+    public String getTitle() {return title;}
+    public BigDecimal getAmount() {return amount;}
+    public String getCurrency() {return currency;}
+    public String getCategoryName() {return categoryName;}
+}
@@ -0,0 +1,25 @@
+package org.example.financetracker.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+// Заранее заданные курсы к рублю — для тестов и работы полностью без сети
+public class StaticRateProvider implements RateProvider {
+    private final Map<String, BigDecimal> rubRates;
+
+    public StaticRateProvider(Map<String, BigDecimal> rubRates) {
+        this.rubRates = Map.copyOf(rubRates);
+    }
+
+    @Override
+    public String name() {
+        return "заданные курсы";
+    }
+
+    @Override
+    public RateSnapshot fetch(RateSnapshot current) {
+        return new RateSnapshot(rubRates, LocalDate.now(), LocalDateTime.now());
+    }
+}
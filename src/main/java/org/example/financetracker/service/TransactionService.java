@@ -1,25 +1,35 @@
 package org.example.financetracker.service;
 
-import org.example.financetracker.db.DatabaseManager;
+import org.example.financetracker.db.CategoryDAO;
 import org.example.financetracker.db.TransactionDAO;
 import org.example.financetracker.db.ExchangeRateDAO;
 import org.example.financetracker.db.SettingsDAO;
-import org.example.financetracker.db.DataSource;
+import org.example.financetracker.db.MonthlySummaryDAO;
 
+import org.example.financetracker.model.BalancePoint;
+import org.example.financetracker.model.Category;
+import org.example.financetracker.model.MonthlyReport;
 import org.example.financetracker.model.Transaction;
+import org.example.financetracker.model.TransactionKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 
-import java.sql.SQLException;
-import java.sql.Connection;
-import java.sql.Statement;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.YearMonth;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class TransactionService {
     private static final Logger log = LoggerFactory.getLogger(TransactionService.class);
@@ -27,108 +37,439 @@ public class TransactionService {
     private final TransactionDAO transactionDAO;
     private final ExchangeRateService exchangeRateService;
     private final SettingsDAO settingsDAO;
+    private final CategoryDAO categoryDAO;
+    private final MonthlySummaryDAO monthlySummaryDAO;
 
-    public TransactionService() throws SQLException {
+    // суммы по (валюта, тип) — баланс считается из них, а не из истории
+    private final RunningTotals totals = new RunningTotals();
+    private volatile boolean totalsLoaded;
+    // префиксные суммы по дням для баланса на дату; загружаются при первом запросе
+    private final BalanceIndex index = new BalanceIndex();
+    private volatile boolean indexLoaded;
+    // номер изменения данных: растёт при каждой записи, по нему клиенты API проверяют свежесть ответа (ETag)
+    private final AtomicLong dataVersion = new AtomicLong();
+    // {номер изменения, первый день операций}: перечитывается одним MIN по индексу даты после каждой записи
+    private volatile long[] firstDay = {-1, 0};
+
+    public TransactionService() {
+        this(new ExchangeRateService(new ExchangeRateDAO()));
+    }
+
+    // Общий сервис курсов: один снимок и одно состояние сети на всё приложение
+    public TransactionService(ExchangeRateService exchangeRateService) {
         this.transactionDAO = new TransactionDAO();
-        this.exchangeRateService = new ExchangeRateService(new ExchangeRateDAO(DatabaseManager.getConnection()));
+        this.exchangeRateService = exchangeRateService;
         this.settingsDAO = new SettingsDAO();
+        this.categoryDAO = new CategoryDAO();
+        this.monthlySummaryDAO = new MonthlySummaryDAO();
     }
 
     // Добавление транзакции
     public void addTransaction(Transaction transaction) {
-        transactionDAO.add(transaction);
+        // запись и обновление сумм под одной блокировкой, чтобы не разойтись с первичным подсчётом
+        synchronized (totals) {
+            transactionDAO.add(transaction);
+            dataVersion.incrementAndGet();
+            if (totalsLoaded) {
+                totals.add(transaction.getCurrency(), categoryType(transaction), transaction.getAmount());
+            }
+            if (indexLoaded) {
+                indexAdd(transaction, 1);
+            }
+        }
         log.info("Транзакция добавлена через сервис: {}", transaction.getTitle());
     }
 
+    // Пакетное добавление в одной транзакции БД; id проставляются в переданные объекты
+    public void addTransactions(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        synchronized (totals) {
+            transactionDAO.addAll(transactions);
+            dataVersion.incrementAndGet();
+            for (Transaction t : transactions) {
+                if (totalsLoaded) {
+                    totals.add(t.getCurrency(), categoryType(t), t.getAmount());
+                }
+                if (indexLoaded) {
+                    indexAdd(t, 1);
+                }
+            }
+        }
+    }
+
     // Удаление транзакции
     public void deleteTransaction(long id) {
-        transactionDAO.delete(id);
+        // старые значения нужны, чтобы вычесть их из текущих сумм
+        synchronized (totals) {
+            Transaction existing = totalsLoaded || indexLoaded ? transactionDAO.findById(id) : null;
+            transactionDAO.delete(id);
+            dataVersion.incrementAndGet();
+            if (existing != null && totalsLoaded) {
+                totals.subtract(existing.getCurrency(), categoryType(existing), existing.getAmount());
+            }
+            if (existing != null && indexLoaded) {
+                indexAdd(existing, -1);
+            }
+        }
         log.info("Транзакция удалена через сервис: id={}", id);
     }
 
+    // Изменение транзакции на месте: один UPDATE только изменённых столбцов, id не меняется
+    public void updateTransaction(Transaction transaction) {
+        synchronized (totals) {
+            Transaction before = transactionDAO.findById(transaction.getId());
+            if (before == null) {
+                throw new IllegalStateException("Транзакция id=" + transaction.getId() + " не найдена");
+            }
+            if (!transactionDAO.update(before, transaction)) {
+                return;
+            }
+            dataVersion.incrementAndGet();
+            if (totalsLoaded) {
+                totals.subtract(before.getCurrency(), categoryType(before), before.getAmount());
+                totals.add(transaction.getCurrency(), categoryType(transaction), transaction.getAmount());
+            }
+            if (indexLoaded) {
+                indexAdd(before, -1);
+                indexAdd(transaction, 1);
+            }
+        }
+        log.info("Транзакция изменена через сервис: id={}", transaction.getId());
+    }
+
+    // Пакетное изменение нескольких транзакций в одной транзакции БД
+    public void updateTransactions(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        synchronized (totals) {
+            List<Long> ids = transactions.stream().map(Transaction::getId).toList();
+            List<Transaction> before = totalsLoaded || indexLoaded ? transactionDAO.findByIds(ids) : List.of();
+            transactionDAO.updateBatch(transactions);
+            dataVersion.incrementAndGet();
+            if (totalsLoaded) {
+                for (Transaction old : before) {
+                    totals.subtract(old.getCurrency(), categoryType(old), old.getAmount());
+                }
+                for (Transaction t : transactions) {
+                    totals.add(t.getCurrency(), categoryType(t), t.getAmount());
+                }
+            }
+            if (indexLoaded) {
+                before.forEach(old -> indexAdd(old, -1));
+                transactions.forEach(t -> indexAdd(t, 1));
+            }
+        }
+    }
+
+    // Перенос транзакций в другую категорию (например, массовая перекатегоризация)
+    public void recategorize(Collection<Long> ids, Category category) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Long categoryId = category != null ? category.getId() : null;
+        synchronized (totals) {
+            List<Transaction> before = totalsLoaded || indexLoaded ? transactionDAO.findByIds(ids) : List.of();
+            transactionDAO.updateCategory(ids, categoryId);
+            dataVersion.incrementAndGet();
+            String newType = category != null && category.getType() != null ? category.getType() : "expense";
+            for (Transaction old : before) {
+                String oldType = categoryType(old);
+                if (totalsLoaded) {
+                    totals.subtract(old.getCurrency(), oldType, old.getAmount());
+                    totals.add(old.getCurrency(), newType, old.getAmount());
+                }
+                if (indexLoaded && !oldType.equals(newType)) {
+                    int day = (int) old.getTransaction_date().toEpochDay();
+                    long minor = MoneyMath.toMinor(old.getAmount());
+                    index.add(old.getCurrency(), day, "income".equals(oldType), -minor);
+                    index.add(old.getCurrency(), day, "income".equals(newType), minor);
+                }
+            }
+        }
+    }
+
+    // Импорт выписки (CSV/OFX). Прерванный импорт при повторном запуске продолжается с контрольной точки.
+    public ImportResult importStatement(Path file) throws IOException {
+        StatementImporter importer = new StatementImporter(transactionDAO, categoryDAO, exchangeRateService::isKnownCurrency);
+        return importer.importFile(file, settingsDAO.getMainCurrency(), (conn, chunk) -> {
+            synchronized (totals) {
+                conn.commit();
+                dataVersion.incrementAndGet();
+                if (totalsLoaded) {
+                    for (Transaction t : chunk) {
+                        totals.add(t.getCurrency(), categoryType(t), t.getAmount());
+                    }
+                }
+                if (indexLoaded) {
+                    chunk.forEach(t -> indexAdd(t, 1));
+                }
+            }
+        });
+    }
+
     // Получение всех транзакций
     public List<Transaction> getAllTransactions() {
         return transactionDAO.findAll();
     }
 
+    // Постраничное чтение истории (новые сверху); after == null — первая страница
+    public List<Transaction> getTransactionPage(TransactionKey after, int limit) {
+        return transactionDAO.findPageAfter(after, limit);
+    }
+
+    public List<Transaction> getTransactionPageFrom(TransactionKey from, int limit) {
+        return transactionDAO.findPageFrom(from, limit);
+    }
+
+    public List<TransactionKey> getPageStartKeys(int pageSize) {
+        return transactionDAO.findPageStartKeys(pageSize);
+    }
+
+    public long getDataVersion() {
+        return dataVersion.get();
+    }
+
+    public int countTransactions() {
+        return transactionDAO.count();
+    }
+
+    // Валюты, курсы которых нужны: основная и все валюты транзакций (из текущих сумм, без запроса к таблице)
+    public Set<String> getUsedCurrencies() {
+        Set<String> currencies = new TreeSet<>();
+        currencies.add(settingsDAO.getMainCurrency());
+        currentTotals().forEach((currency, income, minor) -> currencies.add(currency));
+        return currencies;
+    }
+
     // Расчет общего баланса в основной валюте
     public BigDecimal calculateTotalBalance() {
-        String mainCurrency = settingsDAO.getMainCurrency();
-        List<Transaction> transactions = getAllTransactions();
+        long[] sums = allTimeTotals(settingsDAO.getMainCurrency());
+        // расходы и транзакции без категории вычитаются
+        return MoneyMath.fromMinor(MoneyMath.subtract(sums[0], sums[1]));
+    }
+
+    // Расчет отдельно доходов и расходов
+    public Map<String, BigDecimal> calculateIncomeExpense() {
+        return incomeExpense(allTimeTotals(settingsDAO.getMainCurrency()));
+    }
 
-        BigDecimal total = BigDecimal.ZERO;
+    // Доходы и расходы за период [from, to] в основной валюте — O(log n) по индексу префиксных сумм
+    public Map<String, BigDecimal> calculateIncomeExpense(LocalDate from, LocalDate to) {
+        return incomeExpense(rangeTotals((int) from.toEpochDay(), (int) to.toEpochDay(), settingsDAO.getMainCurrency()));
+    }
 
-        for (Transaction t : transactions) {
-            BigDecimal amount = t.getAmount();
+    // Баланс на конец дня date в основной валюте
+    public BigDecimal calculateBalanceAsOf(LocalDate date) {
+        long[] sums = rangeTotals(Integer.MIN_VALUE, (int) date.toEpochDay(), settingsDAO.getMainCurrency());
+        return MoneyMath.fromMinor(MoneyMath.subtract(sums[0], sums[1]));
+    }
 
-            // Если валюта транзакции отличается от основной - конвертируем
-            if (!t.getCurrency().equals(mainCurrency)) {
-                BigDecimal rate = exchangeRateService.getRate(t.getCurrency(), mainCurrency);
-                amount = amount.multiply(rate).setScale(2, RoundingMode.HALF_UP);
+    // Баланс на даты from, from + step, ... и на to включительно — для графика.
+    // Каждая точка — предыдущая плюс итоги за дни между ними, поэтому вся серия — один проход по дням.
+    public List<BalancePoint> getBalanceHistory(LocalDate from, LocalDate to, Period step) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Конец периода раньше начала: " + from + " > " + to);
+        }
+        if (step.isNegative() || step.isZero()) {
+            throw new IllegalArgumentException("Шаг должен быть положительным: " + step);
+        }
+        String mainCurrency = settingsDAO.getMainCurrency();
+        List<BalancePoint> points = new ArrayList<>();
+        long balance = 0;
+        int previousDay = Integer.MIN_VALUE;
+        LocalDate date = from;
+        for (int i = 1; ; i++) {
+            int day = (int) date.toEpochDay();
+            long[] sums = rangeTotals(previousDay, day, mainCurrency);
+            balance = MoneyMath.add(balance, MoneyMath.subtract(sums[0], sums[1]));
+            points.add(new BalancePoint(date, MoneyMath.fromMinor(balance)));
+            if (!date.isBefore(to)) {
+                return points;
             }
+            previousDay = day + 1;
+            LocalDate next = from.plus(step.multipliedBy(i));
+            date = next.isAfter(to) ? to : next;
+        }
+    }
 
-            // Определяем тип транзакции
-            if (t.getCategory() != null && t.getCategory().getType() != null) {
-                if ("income".equals(t.getCategory().getType())) {
-                    // Доходы добавляются
-                    total = total.add(amount);
-                } else {
-                    // Расходы вычитаются
-                    total = total.subtract(amount);
+    // Доходы [0] и расходы [1] за всё время в копейках основной валюты.
+    // Валюты, история курсов которых покрывает всю историю операций, пересчитываются по курсу на дату операции
+    // (по суммам за день из индекса); остальные — одной суммой на (валюта, тип категории) по текущему курсу,
+    // O(валют) без загрузки индекса. История из одной сохранённой точки (миграция V5) покрытием не считается.
+    private long[] allTimeTotals(String mainCurrency) {
+        long[] sums = new long[2];
+        RateHistory history = exchangeRateService.getHistory();
+        int firstDay = history.isEmpty() ? Integer.MAX_VALUE : firstTransactionDay();
+        List<String> dated = new ArrayList<>();
+        currentTotals().forEach((currency, income, minor) -> {
+            if (usesHistory(history, currency, mainCurrency, firstDay)) {
+                if (!dated.contains(currency)) {
+                    dated.add(currency);
                 }
             } else {
-                // Если категория не определена, считаем расходом
-                total = total.subtract(amount);
+                accumulate(sums, currency, mainCurrency, income, minor);
             }
+        });
+        addByDate(sums, dated, Integer.MIN_VALUE, Integer.MAX_VALUE, mainCurrency, history);
+        return sums;
+    }
+
+    // То же за дни [fromDay, toDay] — по индексу префиксных сумм; правило выбора курса то же,
+    // чтобы баланс на сегодня совпадал с общим
+    private long[] rangeTotals(int fromDay, int toDay, String mainCurrency) {
+        long[] sums = new long[2];
+        RateHistory history = exchangeRateService.getHistory();
+        int firstDay = history.isEmpty() ? Integer.MAX_VALUE : firstTransactionDay();
+        List<String> dated = new ArrayList<>();
+        // по одному итогу на валюту — конвертируем только их
+        balanceIndex().sumByCurrency(fromDay, toDay, (currency, income, expense) -> {
+            if (usesHistory(history, currency, mainCurrency, firstDay)) {
+                dated.add(currency);
+            } else {
+                accumulate(sums, currency, mainCurrency, true, income);
+                accumulate(sums, currency, mainCurrency, false, expense);
+            }
+        });
+        addByDate(sums, dated, fromDay, toDay, mainCurrency, history);
+        return sums;
+    }
+
+    private static boolean usesHistory(RateHistory history, String currency, String mainCurrency, int firstDay) {
+        return !currency.equals(mainCurrency) && history.spans(currency, mainCurrency, firstDay);
+    }
+
+    // Первый день операций (epoch day); Integer.MAX_VALUE — операций нет
+    private int firstTransactionDay() {
+        long version = dataVersion.get();
+        long[] cached = firstDay;
+        if (cached[0] != version) {
+            int[] range = transactionDAO.dayRange();
+            cached = new long[]{version, range != null ? range[0] : Integer.MAX_VALUE};
+            firstDay = cached;
         }
-        return total;
+        return (int) cached[1];
     }
 
-    // Расчет отдельно доходов и расходов
-    public Map<String, BigDecimal> calculateIncomeExpense() {
-        String mainCurrency = settingsDAO.getMainCurrency();
-        List<Transaction> transactions = getAllTransactions();
+    // Суммы за каждый день — по курсу этого дня (плотный массив курсов, без поиска)
+    private void addByDate(long[] sums, List<String> currencies, int fromDay, int toDay, String mainCurrency,
+                           RateHistory history) {
+        if (currencies.isEmpty()) {
+            return;
+        }
+        BalanceIndex days = balanceIndex();
+        for (String currency : currencies) {
+            days.forEachDay(currency, fromDay, toDay, (epochDay, income, expense) -> {
+                long rate = history.rateMicros(currency, mainCurrency, epochDay);
+                sums[0] = MoneyMath.add(sums[0], MoneyMath.convert(income, rate));
+                sums[1] = MoneyMath.add(sums[1], MoneyMath.convert(expense, rate));
+            });
+        }
+    }
 
-        BigDecimal income = BigDecimal.ZERO;
-        BigDecimal expense = BigDecimal.ZERO;
+    // Доходы и расходы по месяцам и категориям за период в основной валюте — по строкам MONTHLY_SUMMARY
+    // (сотни строк итогов вместо обхода истории), одинаково в окне, пакетном режиме и API
+    public MonthlyReport buildMonthlyReport(YearMonth from, YearMonth to) {
+        ReportEngine engine = new ReportEngine(exchangeRateService, categoryDAO);
+        return engine.build(from, to, settingsDAO.getMainCurrency(), monthlySummaryDAO.findRange(from, to));
+    }
 
-        for (Transaction t : transactions) {
-            BigDecimal amount = t.getAmount();
+    // Пересчёт MONTHLY_SUMMARY по всей истории (восстановление после расхождения); число строк итогов
+    public int rebuildMonthlySummary() {
+        synchronized (totals) {
+            int rows = monthlySummaryDAO.rebuild();
+            totalsLoaded = false;
+            // итоги могли разойтись с прежними — ответы по старому номеру изменения устарели
+            dataVersion.incrementAndGet();
+            return rows;
+        }
+    }
+
+    private void accumulate(long[] sums, String currency, String mainCurrency, boolean income, long minor) {
+        if (minor == 0) {
+            return;
+        }
+        int slot = income ? 0 : 1;
+        sums[slot] = MoneyMath.add(sums[slot], convert(minor, currency, mainCurrency));
+    }
 
-            // Конвертация в основную валюту
-            if (!t.getCurrency().equals(mainCurrency)) {
-                BigDecimal rate = exchangeRateService.getRate(t.getCurrency(), mainCurrency);
-                amount = amount.multiply(rate).setScale(2, RoundingMode.HALF_UP);
+    private static Map<String, BigDecimal> incomeExpense(long[] sums) {
+        Map<String, BigDecimal> result = new HashMap<>();
+        result.put("income", MoneyMath.fromMinor(sums[0]));
+        result.put("expense", MoneyMath.fromMinor(sums[1]));
+        return result;
+    }
+
+    // Индекс префиксных сумм по дням; при первом обращении строится одним агрегирующим запросом
+    public BalanceIndex balanceIndex() {
+        if (!indexLoaded) {
+            synchronized (totals) {
+                if (!indexLoaded) {
+                    long start = System.nanoTime();
+                    index.load(transactionDAO);
+                    indexLoaded = true;
+                    log.info("Индекс баланса по дням: {} валют, {} КБ, построен за {} мс", index.currencyCount(),
+                            index.memoryBytes() / 1024, (System.nanoTime() - start) / 1_000_000);
+                }
             }
+        }
+        return index;
+    }
+
+    private void indexAdd(Transaction t, int sign) {
+        long minor = MoneyMath.toMinor(t.getAmount());
+        index.add(t.getCurrency(), (int) t.getTransaction_date().toEpochDay(), "income".equals(categoryType(t)),
+                sign < 0 ? -minor : minor);
+    }
 
-            // Определяем тип по категории
-            if (t.getCategory() != null && t.getCategory().getType() != null) {
-                if ("income".equals(t.getCategory().getType())) {
-                    income = income.add(amount);
-                } else if ("expense".equals(t.getCategory().getType())) {
-                    expense = expense.add(amount);
+    // Текущие суммы; при первом обращении заполняются из итогов по месяцам (сотни строк, а не вся история)
+    private RunningTotals currentTotals() {
+        if (!totalsLoaded) {
+            synchronized (totals) {
+                if (!totalsLoaded) {
+                    totals.reset(monthlySummaryDAO.sumByCurrencyAndType());
+                    totalsLoaded = true;
                 }
-            } else {
-                // Если категория не определена, считаем расходом
-                expense = expense.add(amount);
             }
         }
+        return totals;
+    }
 
-        Map<String, BigDecimal> result = new HashMap<>();
-        result.put("income", income);
-        result.put("expense", expense);
-        return result;
+    // Тип категории транзакции: income / expense (без категории — расход)
+    private String categoryType(Transaction t) {
+        if (t.getCategory() != null && t.getCategory().getType() != null) {
+            return t.getCategory().getType();
+        }
+        if (t.getCategory_id() != null && t.getCategory_id() > 0) {
+            Category category = categoryDAO.getById(t.getCategory_id());
+            if (category != null) {
+                return category.getType();
+            }
+        }
+        return "expense";
+    }
+
+    // Конвертация суммы (в копейках) в основную валюту: округление HALF_UP до копеек.
+    // Сумма в валюте без известного курса в итог не входит (ExchangeRateService пишет об этом в журнал).
+    private long convert(long minor, String currency, String mainCurrency) {
+        if (currency.equals(mainCurrency)) {
+            return minor;
+        }
+        BigDecimal rate = exchangeRateService.getRate(currency, mainCurrency);
+        return rate != null ? MoneyMath.convert(minor, rate) : 0;
     }
 
     // Очистка всех транзакций (обнуление баланса)
     public void clearAllTransactions() {
-        try (Connection conn = DataSource.getConnection();
-             Statement stmt = conn.createStatement()) {
-            stmt.execute("DELETE FROM transactions");
-            log.info("Все транзакции удалены");
-        } catch (SQLException e) {
-            log.error("Ошибка при очистке транзакций", e);
-            throw new RuntimeException("Failed to clear transactions", e);
+        synchronized (totals) {
+            transactionDAO.deleteAll();
+            dataVersion.incrementAndGet();
+            totals.reset(List.of());
+            totalsLoaded = true;
+            index.clear();
+            indexLoaded = true;
         }
     }
 }
\ No newline at end of file
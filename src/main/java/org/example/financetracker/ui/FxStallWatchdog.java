@@ -0,0 +1,82 @@
+package org.example.financetracker.ui;
+
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Сторож потока JavaFX: периодически ставит в очередь пустую задачу и замеряет,
+// через сколько она выполнилась. Всё, что дольше порога (по умолчанию 16 мс — один кадр),
+// пишется в лог; при долгом зависании — вместе со стеком потока JavaFX.
+public final class FxStallWatchdog {
+    private static final Logger log = LoggerFactory.getLogger(FxStallWatchdog.class);
+
+    private static final long THRESHOLD_MS = Long.getLong("financetracker.ui.stallThresholdMs", 16);
+    private static final long PING_INTERVAL_MS = 100;
+    // зависание дольше этого — снимаем стек, чтобы было видно, чем занят поток
+    private static final long STACK_DUMP_MS = 250;
+
+    private static volatile Thread watcher;
+
+    private FxStallWatchdog() {
+    }
+
+    // Запускается из потока JavaFX (Application.start)
+    public static synchronized void start() {
+        if (watcher != null) {
+            return;
+        }
+        Thread fxThread = Thread.currentThread();
+        watcher = Thread.ofPlatform().name("fx-stall-watchdog").daemon(true).start(() -> watch(fxThread));
+        log.debug("Сторож потока JavaFX запущен, порог {} мс", THRESHOLD_MS);
+    }
+
+    public static synchronized void stop() {
+        if (watcher != null) {
+            watcher.interrupt();
+            watcher = null;
+        }
+    }
+
+    private static void watch(Thread fxThread) {
+        // время постановки текущего пинга в очередь; 0 — пинг уже выполнен
+        AtomicLong pending = new AtomicLong();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                long posted = System.nanoTime();
+                pending.set(posted);
+                Platform.runLater(() -> {
+                    long delayMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - posted);
+                    pending.set(0);
+                    if (delayMs > THRESHOLD_MS) {
+                        log.warn("Поток JavaFX был занят {} мс", delayMs);
+                    }
+                });
+
+                boolean dumped = false;
+                long deadline = posted + TimeUnit.MILLISECONDS.toNanos(PING_INTERVAL_MS);
+                while (pending.get() != 0 || System.nanoTime() < deadline) {
+                    TimeUnit.MILLISECONDS.sleep(5);
+                    long started = pending.get();
+                    if (!dumped && started != 0
+                            && System.nanoTime() - started > TimeUnit.MILLISECONDS.toNanos(STACK_DUMP_MS)) {
+                        dumped = true;
+                        log.warn("Поток JavaFX не отвечает более {} мс:{}", STACK_DUMP_MS, format(fxThread.getStackTrace()));
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String format(StackTraceElement[] stack) {
+        StringBuilder sb = new StringBuilder();
+        for (StackTraceElement element : stack) {
+            sb.append(System.lineSeparator()).append("\tat ").append(element);
+        }
+        return sb.toString();
+    }
+}
@@ -3,32 +3,38 @@ package org.example.financetracker.ui;
 import javafx.application.Platform;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
+import javafx.stage.FileChooser;
 import javafx.util.Callback;
+import org.example.financetracker.api.LocalApiServer;
 import org.example.financetracker.db.CategoryDAO;
-import org.example.financetracker.db.DatabaseManager;
 import org.example.financetracker.db.ExchangeRateDAO;
 import org.example.financetracker.db.SettingsDAO;
+import org.example.financetracker.model.BalanceSummary;
 import org.example.financetracker.model.Category;
 import org.example.financetracker.model.Transaction;
+import org.example.financetracker.service.AsyncFinanceService;
+import org.example.financetracker.service.CircuitBreaker;
 import org.example.financetracker.service.ExchangeRateService;
 import org.example.financetracker.service.TransactionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.math.BigDecimal;
-import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 public class MainController {
     private static final Logger log = LoggerFactory.getLogger(MainController.class);
@@ -40,11 +46,20 @@ public class MainController {
     @FXML private TableColumn<Transaction, LocalDate> dateColumn;
     @FXML private TableColumn<Transaction, Void> actionsColumn;
 
-    private ObservableList<Transaction> transactionsData;
-    private TransactionService transactionService;
+    // история подгружается страницами по мере прокрутки таблицы
+    private static final int PAGE_SIZE = Integer.getInteger("financetracker.ui.pageSize", 200);
+    private static final int MAX_LOADED_PAGES = Integer.getInteger("financetracker.ui.maxLoadedPages", 5);
+    // результаты фоновых задач применяются в потоке JavaFX
+    private static final Executor FX = Platform::runLater;
+
+    private PagedTransactionList transactionsData;
     private ExchangeRateService exchangeRateService;
-    private SettingsDAO settingsDAO;
-    private CategoryDAO categoryDAO;
+    // вся работа с БД и сетью — через асинхронный фасад, поток JavaFX только применяет результаты
+    private AsyncFinanceService service;
+
+    // службы открытого главного окна; закрываются явно при выходе (см. closeServices)
+    private static AsyncFinanceService openService;
+    private static ExchangeRateService openRates;
 
     @FXML
     private void initialize() {
@@ -58,27 +73,59 @@ public class MainController {
         }
     }
 
-    private void initServices() throws SQLException {
-        settingsDAO = new SettingsDAO();
-        transactionService = new TransactionService();
-        exchangeRateService = new ExchangeRateService(new ExchangeRateDAO(DatabaseManager.getConnection()));
-        categoryDAO = new CategoryDAO();
+    private void initServices() {
+        exchangeRateService = new ExchangeRateService(new ExchangeRateDAO());
+        TransactionService transactionService = new TransactionService(exchangeRateService);
+        service = new AsyncFinanceService(transactionService, exchangeRateService, new CategoryDAO(), new SettingsDAO());
+        // курсы обновляются в фоне; новый снимок — пересчёт баланса
+        exchangeRateService.addListener(snapshot -> Platform.runLater(this::updateBalance));
+        exchangeRateService.startBackgroundRefresh(transactionService::getUsedCurrencies);
+        // локальный HTTP API — только при -Dfinancetracker.api.port
+        LocalApiServer.startIfConfigured(transactionService, exchangeRateService);
+        register(service, exchangeRateService);
+    }
+
+    private static synchronized void register(AsyncFinanceService service, ExchangeRateService rates) {
+        closeServices();
+        openService = service;
+        openRates = rates;
+    }
+
+    // Вызывается из HelloApplication.stop до закрытия пула соединений: дожидается фоновых задач и загрузки курсов,
+    // не полагаясь на то, что их потоки — демоны. Локальный API должен быть уже остановлен: он работает через те же службы.
+    public static synchronized void closeServices() {
+        if (openService != null) {
+            openService.close();
+            openService = null;
+        }
+        if (openRates != null) {
+            openRates.close();
+            openRates = null;
+        }
     }
 
     private void setupUI() {
         // Настройка столбцов таблицы
-        titleColumn.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getTitle()));
-        amountColumn.setCellValueFactory(cell -> new SimpleObjectProperty<>(cell.getValue().getAmount()));
-        currencyColumn.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getCurrency()));
-        dateColumn.setCellValueFactory(cell -> new SimpleObjectProperty<>(cell.getValue().getTransaction_date()));
+        // строка ещё не загруженной страницы приходит как null — показываем пустые ячейки
+        titleColumn.setCellValueFactory(cell -> new SimpleStringProperty(
+                cell.getValue() != null ? cell.getValue().getTitle() : null));
+        amountColumn.setCellValueFactory(cell -> new SimpleObjectProperty<>(
+                cell.getValue() != null ? cell.getValue().getAmount() : null));
+        currencyColumn.setCellValueFactory(cell -> new SimpleStringProperty(
+                cell.getValue() != null ? cell.getValue().getCurrency() : null));
+        dateColumn.setCellValueFactory(cell -> new SimpleObjectProperty<>(
+                cell.getValue() != null ? cell.getValue().getTransaction_date() : null));
         categoryColumn.setCellValueFactory(cell -> {
             Transaction t = cell.getValue();
+            if (t == null) {
+                return new SimpleStringProperty(null);
+            }
             String name = (t.getCategory() != null) ? t.getCategory().getName() : "Без категории";
             return new SimpleStringProperty(name);
         });
         typeColumn.setCellValueFactory(cell -> {
             Transaction t = cell.getValue();
-            return new SimpleStringProperty(t.getCategoryType());
+            return new SimpleStringProperty(t != null ? t.getCategoryType() : null);
         });
 
         // Столбец с кнопками действий
@@ -109,7 +156,7 @@ public class MainController {
                     @Override
                     protected void updateItem(Void item, boolean empty) {
                         super.updateItem(item, empty);
-                        if (empty) {
+                        if (empty || getTableRow() == null || getTableRow().getItem() == null) {
                             setGraphic(null);
                         } else {
                             HBox box = new HBox(editButton, deleteButton);
@@ -121,7 +168,7 @@ public class MainController {
             }
         });
 
-        transactionsData = FXCollections.observableArrayList();
+        transactionsData = new PagedTransactionList(service, PAGE_SIZE, MAX_LOADED_PAGES);
         transactionsTable.setItems(transactionsData);
     }
 
@@ -136,6 +183,18 @@ public class MainController {
     }
 
     private void showTransactionDialog(boolean isIncome) {
+        // категории и основная валюта читаются в фоне, диалог открывается, когда они готовы
+        CompletableFuture<List<Category>> categories = service.getCategories();
+        CompletableFuture<String> mainCurrency = service.getMainCurrency();
+        apply(categories.thenCombine(mainCurrency, (list, currency) -> currency),
+                currency -> showTransactionDialog(isIncome, categories.join(), currency),
+                "Ошибка загрузки категорий");
+    }
+
+    private void showTransactionDialog(boolean isIncome, List<Category> categories, String mainCurrency) {
+        String type = isIncome ? "income" : "expense";
+        Map<String, Category> categoriesByName = byName(categories, type);
+
         Dialog<Transaction> dialog = new Dialog<>();
         dialog.setTitle(isIncome ? "Добавить доход" : "Добавить расход");
         dialog.setHeaderText(isIncome ? "Введите данные о доходе" : "Введите данные о расходе");
@@ -154,13 +213,13 @@ public class MainController {
         amountField.setPromptText("0.00");
 
         ComboBox<String> currencyComboBox = new ComboBox<>();
-        currencyComboBox.getItems().addAll("RUB", "USD", "EUR");
-        currencyComboBox.setValue(settingsDAO.getMainCurrency());
+        currencyComboBox.getItems().addAll(currencies());
+        currencyComboBox.setValue(mainCurrency);
 
         DatePicker datePicker = new DatePicker(LocalDate.now());
 
         ComboBox<String> categoryComboBox = new ComboBox<>();
-        loadCategoriesToComboBox(categoryComboBox, isIncome ? "income" : "expense");
+        fillCategories(categoryComboBox, categoriesByName);
 
         HBox categoryBox = new HBox(5);
         TextField newCategoryField = new TextField();
@@ -169,12 +228,18 @@ public class MainController {
         addCategoryBtn.setOnAction(e -> {
             String newCatName = newCategoryField.getText().trim();
             if (!newCatName.isEmpty()) {
-                Category newCat = categoryDAO.add(newCatName, isIncome ? "income" : "expense");
-                if (newCat != null) {
-                    categoryComboBox.getItems().add(newCatName);
-                    categoryComboBox.setValue(newCatName);
-                    newCategoryField.clear();
-                }
+                addCategoryBtn.setDisable(true);
+                service.addCategory(newCatName, type).whenCompleteAsync((newCat, error) -> {
+                    addCategoryBtn.setDisable(false);
+                    if (newCat != null) {
+                        categoriesByName.put(newCat.getName(), newCat);
+                        categoryComboBox.getItems().add(newCat.getName());
+                        categoryComboBox.setValue(newCat.getName());
+                        newCategoryField.clear();
+                    } else {
+                        showError("Не удалось добавить категорию");
+                    }
+                }, FX);
             }
         });
         categoryBox.getChildren().addAll(categoryComboBox, newCategoryField, addCategoryBtn);
@@ -231,11 +296,9 @@ public class MainController {
                     t.setCurrency(currencyComboBox.getValue());
                     t.setTransaction_date(datePicker.getValue());
 
-                    Long categoryId = categoryDAO.getIdByName(categoryName);
-                    t.setCategory_id(categoryId);
-
-                    if (categoryId != null) {
-                        Category category = categoryDAO.getById(categoryId);
+                    Category category = categoriesByName.get(categoryName);
+                    if (category != null) {
+                        t.setCategory_id(category.getId());
                         t.setCategory(category);
                     }
 
@@ -249,26 +312,25 @@ public class MainController {
         });
 
         Optional<Transaction> result = dialog.showAndWait();
-        result.ifPresent(transaction -> {
-            try {
-                transactionService.addTransaction(transaction);
-                transactionsData.add(0, transaction);
-                updateBalance();
-                showNotification("Транзакция добавлена!");
-            } catch (Exception e) {
-                showError("Ошибка сохранения: " + e.getMessage());
-            }
-        });
+        result.ifPresent(transaction -> apply(service.addTransaction(transaction), ignored -> {
+            loadData();
+            showNotification("Транзакция добавлена!");
+        }, "Ошибка сохранения"));
     }
 
-    private void loadCategoriesToComboBox(ComboBox<String> comboBox, String type) {
-        comboBox.getItems().clear();
-        List<Category> categories = categoryDAO.getAll();
+    // Категории нужного типа (type == null — все) по имени, в порядке из БД
+    private Map<String, Category> byName(List<Category> categories, String type) {
+        Map<String, Category> result = new LinkedHashMap<>();
         for (Category cat : categories) {
             if (type == null || type.equals(cat.getType())) {
-                comboBox.getItems().add(cat.getName());
+                result.putIfAbsent(cat.getName(), cat);
             }
         }
+        return result;
+    }
+
+    private void fillCategories(ComboBox<String> comboBox, Map<String, Category> categoriesByName) {
+        comboBox.getItems().setAll(categoriesByName.keySet());
         if (!comboBox.getItems().isEmpty()) {
             comboBox.setValue(comboBox.getItems().get(0));
         }
@@ -281,20 +343,22 @@ public class MainController {
         alert.setContentText("Это действие нельзя отменить.");
         alert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                try {
-                    transactionService.deleteTransaction(transaction.getId());
-                    transactionsData.remove(transaction);
-                    updateBalance();
+                apply(service.deleteTransaction(transaction.getId()), ignored -> {
+                    loadData();
                     showNotification("Транзакция удалена");
-                } catch (Exception e) {
-                    showError("Ошибка удаления: " + e.getMessage());
-                    log.error("Ошибка удаления транзакции", e);
-                }
+                }, "Ошибка удаления");
             }
         });
     }
 
     private void openEditDialog(Transaction transaction) {
+        apply(service.getCategories(), categories -> openEditDialog(transaction, categories), "Ошибка загрузки категорий");
+    }
+
+    private void openEditDialog(Transaction transaction, List<Category> categories) {
+        String type = transaction.getCategory() != null ? transaction.getCategory().getType() : null;
+        Map<String, Category> categoriesByName = byName(categories, type);
+
         Dialog<ButtonType> dialog = new Dialog<>();
         dialog.setTitle("Редактирование транзакции");
         dialog.setHeaderText("Измените данные транзакции");
@@ -309,18 +373,15 @@ public class MainController {
         TextField editTitleField = new TextField(transaction.getTitle());
         TextField editAmountField = new TextField(transaction.getAmount().toString());
         ComboBox<String> editCurrencyComboBox = new ComboBox<>();
-        editCurrencyComboBox.getItems().addAll("RUB", "USD", "EUR");
+        editCurrencyComboBox.getItems().addAll(currencies());
         editCurrencyComboBox.setValue(transaction.getCurrency());
 
         DatePicker editDatePicker = new DatePicker(transaction.getTransaction_date());
 
         ComboBox<String> editCategoryComboBox = new ComboBox<>();
+        fillCategories(editCategoryComboBox, categoriesByName);
         if (transaction.getCategory() != null) {
-            String type = transaction.getCategory().getType();
-            loadCategoriesToComboBox(editCategoryComboBox, type);
             editCategoryComboBox.setValue(transaction.getCategory().getName());
-        } else {
-            loadCategoriesToComboBox(editCategoryComboBox, null);
         }
 
         grid.add(new Label("Название:"), 0, 0);
@@ -361,30 +422,30 @@ public class MainController {
                 }
 
                 try {
-                    transaction.setTitle(editTitleField.getText().trim());
-                    transaction.setAmount(new BigDecimal(editAmountField.getText()));
-                    transaction.setCurrency(editCurrencyComboBox.getValue());
-                    transaction.setTransaction_date(editDatePicker.getValue());
-
-                    String categoryName = editCategoryComboBox.getValue();
-                    Long categoryId = categoryDAO.getIdByName(categoryName);
-                    transaction.setCategory_id(categoryId);
-
-                    if (categoryId != null) {
-                        Category category = categoryDAO.getById(categoryId);
-                        if (category != null) {
-                            transaction.setCategory(category);
-                        }
-                    }
-
-                    saveTransaction(transaction);
-
-                    int index = transactionsData.indexOf(transaction);
-                    if (index >= 0) {
-                        transactionsData.set(index, transaction);
-                    }
-                    updateBalance();
-                    showNotification("Транзакция обновлена");
+                    // изменения собираются в копии: строка таблицы меняется только после успешной записи,
+                    // иначе при ошибке она разошлась бы с БД, итогами и индексом баланса
+                    Transaction updated = new Transaction();
+                    updated.setId(transaction.getId());
+                    updated.setTitle(editTitleField.getText().trim());
+                    updated.setAmount(new BigDecimal(editAmountField.getText()));
+                    updated.setCurrency(editCurrencyComboBox.getValue());
+                    updated.setTransaction_date(editDatePicker.getValue());
+
+                    // без категории — и без объекта категории: тип операции берётся из него
+                    Category category = categoriesByName.get(editCategoryComboBox.getValue());
+                    updated.setCategory_id(category != null ? category.getId() : null);
+                    updated.setCategory(category);
+
+                    apply(service.updateTransaction(updated), ignored -> {
+                        transaction.setTitle(updated.getTitle());
+                        transaction.setAmount(updated.getAmount());
+                        transaction.setCurrency(updated.getCurrency());
+                        transaction.setTransaction_date(updated.getTransaction_date());
+                        transaction.setCategory_id(updated.getCategory_id());
+                        transaction.setCategory(updated.getCategory());
+                        loadData();
+                        showNotification("Транзакция обновлена");
+                    }, "Не удалось обновить транзакцию");
                     return dialogButton;
                 } catch (Exception e) {
                     showError("Ошибка: " + e.getMessage());
@@ -398,49 +459,70 @@ public class MainController {
         dialog.showAndWait();
     }
 
-    private void saveTransaction(Transaction transaction) {
-        try {
-            transactionService.deleteTransaction(transaction.getId());
-            transactionService.addTransaction(transaction);
-        } catch (Exception e) {
-            throw new RuntimeException("Не удалось обновить транзакцию", e);
+    @FXML
+    private void handleRefreshRates() {
+        // новый снимок пересчитает баланс через получателя ExchangeRateService
+        apply(service.refreshRates(), ignored -> {
+            if (exchangeRateService.getFetchState() == CircuitBreaker.State.CLOSED) {
+                showNotification("Курсы обновлены");
+            } else {
+                showError(String.format("ЦБ недоступен, используются сохранённые курсы (повтор через %d с)",
+                        exchangeRateService.getFetchRetryDelay().toSeconds()));
+            }
+        }, "Ошибка обновления");
+    }
+
+    @FXML
+    private void handleImport() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Импорт банковской выписки");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Выписки (CSV, OFX)", "*.csv", "*.ofx", "*.qfx"),
+                new FileChooser.ExtensionFilter("Все файлы", "*.*"));
+        File file = chooser.showOpenDialog(transactionsTable.getScene().getWindow());
+        if (file == null) {
+            return;
         }
+
+        apply(service.importStatement(file.toPath()), result -> {
+            loadData();
+            showNotification(String.format("Импортировано %d операций (%.0f строк/с), пропущено %d",
+                    result.getRowsImported(), result.getRowsPerSecond(), result.getRowsRejected()));
+        }, "Ошибка импорта");
     }
 
     @FXML
-    private void handleRefreshRates() {
-        Task<Void> task = new Task<>() {
-            @Override
-            protected Void call() throws Exception {
-                exchangeRateService.refreshAllRates(settingsDAO.getMainCurrency());
-                return null;
-            }
-        };
-        task.setOnSucceeded(e -> {
-            updateBalance();
-            showNotification("Курсы обновлены");
-        });
-        task.setOnFailed(e -> showError("Ошибка обновления"));
-        new Thread(task).start();
+    private void handleReport() {
+        ReportDialog dialog = new ReportDialog(service);
+        dialog.initOwner(transactionsTable.getScene().getWindow());
+        dialog.show();
     }
 
     @FXML
     private void handleChangeCurrency() {
-        ChoiceDialog<String> dialog = new ChoiceDialog<>(
-                settingsDAO.getMainCurrency(), "RUB", "USD", "EUR");
+        apply(service.getMainCurrency(), this::showChangeCurrencyDialog, "Ошибка чтения настроек");
+    }
+
+    private void showChangeCurrencyDialog(String mainCurrency) {
+        ChoiceDialog<String> dialog = new ChoiceDialog<>(mainCurrency, currencies());
         dialog.setTitle("Смена основной валюты");
         dialog.setHeaderText("Выберите основную валюту:");
         dialog.setContentText("Валюта:");
         dialog.showAndWait().ifPresent(currency -> {
-            if (!currency.equals(settingsDAO.getMainCurrency())) {
-                settingsDAO.setMainCurrency(currency);
-                loadData();
-                updateBalance();
-                showNotification("Основная валюта изменена на " + currency);
+            if (!currency.equals(mainCurrency)) {
+                apply(service.setMainCurrency(currency), ignored -> {
+                    updateBalance();
+                    showNotification("Основная валюта изменена на " + currency);
+                }, "Ошибка сохранения валюты");
             }
         });
     }
 
+    // Все валюты ЦБ из текущего снимка курсов (чтение без обращения к БД и сети)
+    private List<String> currencies() {
+        return exchangeRateService.getSnapshot().currencyList();
+    }
+
     @FXML
     private void handleClearAll() {
         Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
@@ -449,51 +531,55 @@ public class MainController {
         alert.setContentText("Все данные будут удалены без возможности восстановления.");
         alert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                transactionService.clearAllTransactions();
-                transactionsData.clear();
-                updateBalance();
-                showNotification("Все транзакции удалены");
+                apply(service.clearAllTransactions(), ignored -> {
+                    loadData();
+                    showNotification("Все транзакции удалены");
+                }, "Ошибка очистки");
             }
         });
     }
 
     private void loadData() {
-        transactionsData.setAll(transactionService.getAllTransactions());
+        transactionsData.refresh();
         updateBalance();
     }
 
     private void updateBalance() {
-        Platform.runLater(() -> {
-            try {
-                BigDecimal balance = transactionService.calculateTotalBalance();
-                String currency = settingsDAO.getMainCurrency();
-                if (balance.compareTo(BigDecimal.ZERO) >= 0) {
-                    balanceLabel.setText(String.format("Баланс: +%,.2f %s", balance, currency));
-                    balanceLabel.setStyle("-fx-text-fill: green; -fx-font-size: 24; -fx-font-weight: bold;");
-                } else {
-                    balanceLabel.setText(String.format("Баланс: -%,.2f %s", balance.abs(), currency));
-                    balanceLabel.setStyle("-fx-text-fill: red; -fx-font-size: 24; -fx-font-weight: bold;");
-                }
-                updateIncomeExpense();
-            } catch (Exception e) {
+        service.balance().whenCompleteAsync((summary, error) -> {
+            if (error != null) {
+                log.error("Ошибка расчета баланса", error);
                 balanceLabel.setText("Ошибка расчета");
                 balanceLabel.setStyle("-fx-text-fill: orange;");
+                return;
             }
-        });
+            showBalance(summary);
+        }, FX);
     }
 
-    private void updateIncomeExpense() {
-        try {
-            Map<String, BigDecimal> totals = transactionService.calculateIncomeExpense();
-            BigDecimal income = totals.get("income");
-            BigDecimal expense = totals.get("expense");
-            Platform.runLater(() -> {
-                incomeLabel.setText(String.format("Доходы: +%,.2f", income));
-                expenseLabel.setText(String.format("Расходы: -%,.2f", expense));
-            });
-        } catch (Exception e) {
-            log.error("Ошибка расчета доходов/расходов", e);
+    private void showBalance(BalanceSummary summary) {
+        BigDecimal balance = summary.getBalance();
+        if (balance.compareTo(BigDecimal.ZERO) >= 0) {
+            balanceLabel.setText(String.format("Баланс: +%,.2f %s", balance, summary.getCurrency()));
+            balanceLabel.setStyle("-fx-text-fill: green; -fx-font-size: 24; -fx-font-weight: bold;");
+        } else {
+            balanceLabel.setText(String.format("Баланс: -%,.2f %s", balance.abs(), summary.getCurrency()));
+            balanceLabel.setStyle("-fx-text-fill: red; -fx-font-size: 24; -fx-font-weight: bold;");
         }
+        incomeLabel.setText(String.format("Доходы: +%,.2f", summary.getIncome()));
+        expenseLabel.setText(String.format("Расходы: -%,.2f", summary.getExpense()));
+    }
+
+    // Результат фоновой задачи — в потоке JavaFX; ошибка — в лог и в строку ошибок
+    private <T> void apply(CompletableFuture<T> future, Consumer<T> onSuccess, String errorMessage) {
+        future.whenCompleteAsync((result, error) -> {
+            if (error == null) {
+                onSuccess.accept(result);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            log.error(errorMessage, cause);
+            showError(errorMessage + ": " + cause.getMessage());
+        }, FX);
     }
 
     private void showError(String message) {
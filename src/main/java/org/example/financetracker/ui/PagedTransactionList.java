@@ -0,0 +1,169 @@
+package org.example.financetracker.ui;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+import org.example.financetracker.model.Transaction;
+import org.example.financetracker.model.TransactionKey;
+import org.example.financetracker.service.AsyncFinanceService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+// Список для TableView, который подгружает историю страницами по мере прокрутки.
+// В памяти держится не больше maxPages страниц; давно не видимые вытесняются.
+// Страницы читаются в фоне: пока страница не загружена, get() возвращает null (пустая строка),
+// а после загрузки строки заменяются событием списка. Все поля меняются только в потоке JavaFX.
+// Только для чтения: после изменения данных вызывается refresh().
+public class PagedTransactionList extends ObservableListBase<Transaction> {
+    private static final Logger log = LoggerFactory.getLogger(PagedTransactionList.class);
+
+    private final AsyncFinanceService service;
+    private final int pageSize;
+    private final int maxPages;
+
+    private int size;
+    // загруженные страницы в порядке последнего обращения
+    private final LinkedHashMap<Integer, List<Transaction>> pages;
+    // известные ключи первых строк страниц (номер страницы → ключ)
+    private final Map<Integer, TransactionKey> pageStarts = new HashMap<>();
+    private boolean allPageStartsLoaded;
+    // страницы, которые сейчас читаются в фоне
+    private final Set<Integer> loading = new HashSet<>();
+    // номер поколения данных: ответы, пришедшие после refresh(), отбрасываются
+    private int generation;
+
+    public PagedTransactionList(AsyncFinanceService service, int pageSize, int maxPages) {
+        if (pageSize < 1 || maxPages < 1) {
+            throw new IllegalArgumentException("pageSize и maxPages должны быть больше нуля");
+        }
+        this.service = service;
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.pages = new LinkedHashMap<>(maxPages + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Transaction>> eldest) {
+                return size() > PagedTransactionList.this.maxPages;
+            }
+        };
+    }
+
+    // Перечитать размер истории и сбросить загруженные страницы
+    public CompletableFuture<Void> refresh() {
+        int requested = ++generation;
+        return service.countTransactions().thenAcceptAsync(count -> {
+            if (requested != generation) {
+                return;
+            }
+            int oldSize = size;
+            pages.clear();
+            pageStarts.clear();
+            loading.clear();
+            allPageStartsLoaded = false;
+            size = count;
+
+            beginChange();
+            if (oldSize > 0) {
+                nextRemove(0, Collections.nCopies(oldSize, (Transaction) null));
+            }
+            if (size > 0) {
+                nextAdd(0, size);
+            }
+            endChange();
+        }, Platform::runLater);
+    }
+
+    @Override
+    public Transaction get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        int pageNumber = index / pageSize;
+        List<Transaction> page = pages.get(pageNumber);
+        if (page == null) {
+            load(pageNumber);
+            return null;
+        }
+        int offset = index % pageSize;
+        // страница могла укоротиться, если строки удалили в обход списка до refresh()
+        return offset < page.size() ? page.get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public int getLoadedPageCount() {
+        return pages.size();
+    }
+
+    private void load(int pageNumber) {
+        if (!loading.add(pageNumber)) {
+            return;
+        }
+        int requested = generation;
+
+        CompletableFuture<List<Transaction>> request;
+        List<Transaction> previous = pageNumber > 0 ? pages.get(pageNumber - 1) : null;
+        if (pageNumber == 0) {
+            request = service.getTransactionPage(null, pageSize);
+        } else if (previous != null && !previous.isEmpty()) {
+            // обычная прокрутка вниз: продолжаем от последней строки предыдущей страницы
+            request = service.getTransactionPage(TransactionKey.of(previous.get(previous.size() - 1)), pageSize);
+        } else if (pageStarts.containsKey(pageNumber) || allPageStartsLoaded) {
+            request = pageFrom(pageStarts.get(pageNumber));
+        } else {
+            // переход к произвольной странице (перетаскивание ползунка): сначала ключи начала страниц
+            request = service.getPageStartKeys(pageSize).thenComposeAsync(keys -> {
+                if (requested == generation && !allPageStartsLoaded) {
+                    for (int i = 0; i < keys.size(); i++) {
+                        pageStarts.put(i, keys.get(i));
+                    }
+                    allPageStartsLoaded = true;
+                }
+                return pageFrom(requested == generation ? pageStarts.get(pageNumber) : null);
+            }, Platform::runLater);
+        }
+
+        request.whenCompleteAsync((page, error) -> {
+            if (requested != generation) {
+                return;
+            }
+            loading.remove(pageNumber);
+            if (error != null) {
+                log.error("Ошибка загрузки страницы {}", pageNumber, error);
+                return;
+            }
+            applyPage(pageNumber, page);
+        }, Platform::runLater);
+    }
+
+    private CompletableFuture<List<Transaction>> pageFrom(TransactionKey start) {
+        return start != null ? service.getTransactionPageFrom(start, pageSize) : CompletableFuture.completedFuture(List.of());
+    }
+
+    private void applyPage(int pageNumber, List<Transaction> page) {
+        if (!page.isEmpty()) {
+            pageStarts.putIfAbsent(pageNumber, TransactionKey.of(page.get(0)));
+        }
+        pages.put(pageNumber, page);
+        log.debug("Загружена страница {} ({} строк), в памяти {} стр.", pageNumber, page.size(), pages.size());
+
+        // строки страницы были пустыми — заменяем их, чтобы таблица перерисовала ячейки
+        int from = pageNumber * pageSize;
+        int to = Math.min(size, from + pageSize);
+        if (from < to) {
+            beginChange();
+            nextReplace(from, to, Collections.nCopies(to - from, (Transaction) null));
+            endChange();
+        }
+    }
+}
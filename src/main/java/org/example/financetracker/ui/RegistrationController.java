@@ -7,6 +7,7 @@ import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
 import org.example.financetracker.db.SettingsDAO;
+import org.example.financetracker.service.RateSnapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.IOException;
@@ -25,7 +26,8 @@ public class RegistrationController {
 
     @FXML
     private void initialize() {
-        currencyComboBox.getItems().addAll("RUB", "USD", "EUR");
+        // первый запуск: курсы ещё не загружались — полный список валют ЦБ
+        currencyComboBox.getItems().addAll(RateSnapshot.EMPTY.currencyList());
         currencyComboBox.setValue("RUB");
         nameField.textProperty().addListener((observable, oldValue, newValue) -> {
             if (newValue.length() > 50) {
@@ -0,0 +1,104 @@
+package org.example.financetracker.ui;
+
+import javafx.application.Platform;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.geometry.Insets;
+import javafx.scene.control.Button;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.DatePicker;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import org.example.financetracker.model.MonthlyReport;
+import org.example.financetracker.model.ReportRow;
+import org.example.financetracker.service.AsyncFinanceService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+
+// Отчёт по месяцам и категориям. Строится в фоне, окно только показывает результат.
+public class ReportDialog extends Dialog<Void> {
+    private static final Logger log = LoggerFactory.getLogger(ReportDialog.class);
+
+    private final AsyncFinanceService service;
+    private final DatePicker fromPicker = new DatePicker(LocalDate.now().minusMonths(11).withDayOfMonth(1));
+    private final DatePicker toPicker = new DatePicker(LocalDate.now());
+    private final Button buildButton = new Button("Построить");
+    private final Label summaryLabel = new Label();
+    private final TableView<ReportRow> table = new TableView<>();
+
+    public ReportDialog(AsyncFinanceService service) {
+        this.service = service;
+        setTitle("Отчёт по месяцам");
+        setHeaderText("Доходы и расходы по категориям в основной валюте");
+        setResizable(true);
+        getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
+
+        TableColumn<ReportRow, String> monthColumn = new TableColumn<>("Месяц");
+        monthColumn.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getMonth().toString()));
+        TableColumn<ReportRow, String> categoryColumn = new TableColumn<>("Категория");
+        categoryColumn.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getCategoryName()));
+        categoryColumn.setPrefWidth(200);
+        TableColumn<ReportRow, String> typeColumn = new TableColumn<>("Тип");
+        typeColumn.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().isIncome() ? "Доход" : "Расход"));
+        TableColumn<ReportRow, BigDecimal> amountColumn = new TableColumn<>("Сумма");
+        amountColumn.setCellValueFactory(cell -> new SimpleObjectProperty<>(cell.getValue().getAmount()));
+        amountColumn.setPrefWidth(120);
+        table.getColumns().addAll(monthColumn, categoryColumn, typeColumn, amountColumn);
+        table.setPrefSize(560, 420);
+
+        buildButton.setOnAction(e -> build());
+        HBox period = new HBox(10, new Label("С:"), fromPicker, new Label("По:"), toPicker, buildButton);
+        VBox content = new VBox(10, period, summaryLabel, table);
+        content.setPadding(new Insets(10));
+        getDialogPane().setContent(content);
+
+        build();
+    }
+
+    private void build() {
+        if (fromPicker.getValue() == null || toPicker.getValue() == null) {
+            summaryLabel.setText("Укажите период");
+            return;
+        }
+        YearMonth from = YearMonth.from(fromPicker.getValue());
+        YearMonth to = YearMonth.from(toPicker.getValue());
+        if (to.isBefore(from)) {
+            summaryLabel.setText("Конец периода раньше начала");
+            return;
+        }
+
+        buildButton.setDisable(true);
+        summaryLabel.setText("Строится...");
+        long start = System.nanoTime();
+        service.monthlyReport(from, to).whenCompleteAsync((report, error) -> {
+            buildButton.setDisable(false);
+            if (error != null) {
+                log.error("Ошибка построения отчёта", error);
+                summaryLabel.setText("Ошибка построения отчёта");
+                return;
+            }
+            show(report, (System.nanoTime() - start) / 1_000_000);
+        }, Platform::runLater);
+    }
+
+    private void show(MonthlyReport report, long elapsedMs) {
+        table.getItems().setAll(report.getRows());
+        BigDecimal income = sum(report.getMonthTotals("income"));
+        BigDecimal expense = sum(report.getMonthTotals("expense"));
+        summaryLabel.setText(String.format("%s — %s: доходы +%,.2f, расходы -%,.2f %s (%d мс)",
+                report.getFrom(), report.getTo(), income, expense, report.getCurrency(), elapsedMs));
+    }
+
+    private static BigDecimal sum(Map<YearMonth, BigDecimal> totals) {
+        return totals.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.financetracker;
+
+import org.example.financetracker.db.CategoryDAO;
+import org.example.financetracker.db.DataSource;
+import org.example.financetracker.db.DatabaseManager;
+import org.example.financetracker.db.TransactionDAO;
+import org.example.financetracker.model.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Выгрузка пакетного режима: доход — с плюсом, расход — с минусом, как в выписке
+class CliLauncherTest {
+    @TempDir
+    Path dir;
+
+    private Path db;
+
+    @BeforeEach
+    void createDatabase() throws Exception {
+        db = dir.resolve("cli");
+        DataSource.shutdown();
+        System.setProperty("financetracker.db.url", "jdbc:h2:file:" + db + ";DB_CLOSE_ON_EXIT=FALSE");
+        DatabaseManager.initializeDatabase();
+        CategoryDAO categories = new CategoryDAO();
+        TransactionDAO transactions = new TransactionDAO();
+        transactions.add(transaction("Зарплата янв", "100000.00", categories.find("Зарплата", "income").getId()));
+        transactions.add(transaction("Продукты", "2500.50", categories.find("Продукты", "expense").getId()));
+        DataSource.shutdown();
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        DataSource.shutdown();
+        System.clearProperty("financetracker.db.url");
+    }
+
+    @Test
+    void csvExportKeepsIncomeSign() throws Exception {
+        Path out = dir.resolve("export.csv");
+        assertEquals(0, CliLauncher.run(new String[]{"export", "--db", db.toString(), "--format", "csv", "--out", out.toString()}));
+
+        assertEquals(List.of(
+                "date,title,amount,currency,category",
+                "2024-01-15,Зарплата янв,100000.00,RUB,Зарплата",
+                "2024-01-15,Продукты,-2500.50,RUB,Продукты"), sorted(Files.readAllLines(out)));
+    }
+
+    @Test
+    void jsonExportReportsIncomeType() throws Exception {
+        Path out = dir.resolve("export.json");
+        assertEquals(0, CliLauncher.run(new String[]{"export", "--db", db.toString(), "--out", out.toString()}));
+
+        String json = Files.readString(out);
+        assertTrue(json.matches("(?s).*\"title\":\"Зарплата янв\",\"amount\":100000\\.00,.*?\"type\":\"income\".*"), json);
+        assertTrue(json.matches("(?s).*\"title\":\"Продукты\",\"amount\":2500\\.50,.*?\"type\":\"expense\".*"), json);
+    }
+
+    // заголовок первым, строки одного дня — в порядке названий
+    private static List<String> sorted(List<String> lines) {
+        List<String> rows = new ArrayList<>(lines.subList(1, lines.size()));
+        Collections.sort(rows);
+        rows.add(0, lines.get(0));
+        return rows;
+    }
+
+    private static Transaction transaction(String title, String amount, long categoryId) {
+        Transaction t = new Transaction();
+        t.setTitle(title);
+        t.setAmount(new BigDecimal(amount));
+        t.setCurrency("RUB");
+        t.setTransaction_date(LocalDate.of(2024, 1, 15));
+        t.setCategory_id(categoryId);
+        return t;
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.financetracker.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.financetracker.db.CategoryDAO;
+import org.example.financetracker.db.ExchangeRateDAO;
+import org.example.financetracker.service.ExchangeRateService;
+import org.example.financetracker.service.TestDatabase;
+import org.example.financetracker.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Локальный API на свободном порту поверх пустой БД во временной папке
+class LocalApiServerTest {
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+    private static final String COFFEE = "[{\"title\":\"Кофе\",\"amount\":\"250.00\",\"currency\":\"RUB\",\"date\":\"2024-01-15\"}]";
+
+    @TempDir
+    Path dir;
+
+    private ExchangeRateService exchangeRateService;
+    private LocalApiServer server;
+
+    @BeforeEach
+    void start() throws Exception {
+        TestDatabase.open(dir);
+        exchangeRateService = new ExchangeRateService(new ExchangeRateDAO());
+        server = new LocalApiServer(new TransactionService(exchangeRateService), exchangeRateService, 0);
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+        exchangeRateService.close();
+        TestDatabase.close();
+    }
+
+    @Test
+    void transactionTypeComesFromCategory() throws Exception {
+        CategoryDAO categories = new CategoryDAO();
+        long salary = categories.find("Зарплата", "income").getId();
+        long food = categories.find("Продукты", "expense").getId();
+        HttpResponse<String> posted = post("/api/transactions", """
+                [{"title":"Зарплата янв","amount":"100000.00","currency":"RUB","date":"2024-01-15","categoryId":%d},
+                 {"title":"Продукты","amount":"2500.50","currency":"RUB","date":"2024-01-16","categoryId":%d}]
+                """.formatted(salary, food));
+        assertEquals(201, posted.statusCode(), posted.body());
+
+        HttpResponse<String> page = get("/api/transactions");
+        assertEquals(200, page.statusCode(), page.body());
+        Map<String, String> types = new HashMap<>();
+        for (JsonNode item : JSON.readTree(page.body()).get("items")) {
+            types.put(item.get("title").asText(), item.get("type").asText());
+        }
+        assertEquals(Map.of("Зарплата янв", "income", "Продукты", "expense"), types);
+    }
+
+    @Test
+    void unknownCurrencyIsRejected() throws Exception {
+        HttpResponse<String> posted = post("/api/transactions", """
+                [{"title":"Кофе","amount":"250.00","currency":"RUB","date":"2024-01-15"},
+                 {"title":"Неизвестно что","amount":"1.00","currency":"ZZZ","date":"2024-01-15"}]
+                """);
+        assertEquals(400, posted.statusCode(), posted.body());
+        assertTrue(posted.body().contains("ZZZ"), posted.body());
+
+        // пачка отклонена целиком, баланс по-прежнему считается
+        HttpResponse<String> balance = get("/api/balance");
+        assertEquals(200, balance.statusCode(), balance.body());
+        assertEquals(0, JSON.readTree(balance.body()).get("balance").decimalValue().signum());
+    }
+
+    @Test
+    void postRequiresJsonContentType() throws Exception {
+        HttpResponse<String> posted = CLIENT.send(request("/api/transactions").header("Content-Type", "text/plain")
+                .POST(HttpRequest.BodyPublishers.ofString(COFFEE)).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(415, posted.statusCode(), posted.body());
+        assertEquals(201, post("/api/transactions", COFFEE).statusCode());
+    }
+
+    @Test
+    void foreignOriginIsRejected() throws Exception {
+        assertEquals(403, postFrom("http://evil.example", COFFEE).statusCode());
+        assertEquals(403, postFrom("null", COFFEE).statusCode());
+        assertEquals(201, postFrom("http://localhost:" + server.getPort(), COFFEE).statusCode());
+        assertEquals(201, postFrom("http://127.0.0.1:" + server.getPort(), COFFEE).statusCode());
+    }
+
+    @Test
+    void foreignHostIsRejected() throws Exception {
+        // DNS rebinding: страница evil.example, чьё имя указывает на 127.0.0.1; HttpClient Host подменить не даёт
+        assertEquals(403, rawGetStatus("evil.example:" + server.getPort()));
+        assertEquals(200, rawGetStatus("localhost:" + server.getPort()));
+        assertEquals(200, rawGetStatus("[::1]:" + server.getPort()));
+    }
+
+    private HttpResponse<String> postFrom(String origin, String body) throws Exception {
+        return CLIENT.send(request("/api/transactions").header("Content-Type", "application/json").header("Origin", origin)
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private int rawGetStatus(String host) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET /api/balance HTTP/1.1\r\nHost: " + host + "\r\nConnection: close\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            return Integer.parseInt(in.readLine().split(" ")[1]);
+        }
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return CLIENT.send(request(path).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        return CLIENT.send(request(path).header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + path));
+    }
+}
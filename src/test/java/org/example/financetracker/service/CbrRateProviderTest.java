@@ -0,0 +1,89 @@
+package org.example.financetracker.service;
+
+import org.example.financetracker.db.ExchangeRateDAO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+// Условный запрос к ЦБ против локальной заглушки: после полного ответа уходит If-None-Match,
+// неизменившийся документ приходит как 304: fetch возвращает null, курсы снимка не подменяются
+class CbrRateProviderTest {
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void openDatabase() throws Exception {
+        TestDatabase.open(dir);
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        TestDatabase.close();
+    }
+
+    @Test
+    void fetchSendsValidatorsAndReturnsNullOnNotModified() throws Exception {
+        try (StubCbrServer stub = new StubCbrServer(TestDatabase.RUB_RATES, 0)) {
+            CbrRateProvider provider = new CbrRateProvider(stub.url());
+
+            // без сохранённого снимка валидаторов нет — полный ответ
+            RateSnapshot fetched = provider.fetch(RateSnapshot.EMPTY);
+            assertNull(stub.lastIfNoneMatch());
+            assertNotNull(fetched);
+            assertEquals(0, new BigDecimal("90.987600").compareTo(fetched.getRate("USD", "RUB")));
+            assertFalse(fetched.contains("XXX"), "валюта не из списка ЦБ");
+
+            assertNull(provider.fetch(fetched));
+            assertEquals(stub.etag(), stub.lastIfNoneMatch());
+            assertEquals(1, stub.notModified());
+        }
+    }
+
+    @Test
+    void ratesFromAnotherSourceAreNotValidated() throws Exception {
+        try (StubCbrServer stub = new StubCbrServer(TestDatabase.RUB_RATES, 0)) {
+            CbrRateProvider provider = new CbrRateProvider(stub.url());
+            RateSnapshot fetched = provider.fetch(RateSnapshot.EMPTY);
+
+            // текущие курсы пришли из заданных вручную: 304 подтвердил бы чужой снимок — нужен полный ответ
+            RateSnapshot foreign = new StaticRateProvider(TestDatabase.RUB_RATES).fetch(fetched);
+            RateSnapshot full = provider.fetch(foreign);
+            assertNull(stub.lastIfNoneMatch());
+            assertNotNull(full);
+            assertEquals(0, stub.notModified());
+
+            // продлённый собственный снимок по-прежнему подтверждается условным запросом
+            assertNull(provider.fetch(full.renewed(LocalDateTime.now())));
+            assertEquals(stub.etag(), stub.lastIfNoneMatch());
+            assertEquals(1, stub.notModified());
+        }
+    }
+
+    @Test
+    void notModifiedKeepsCurrentRates() throws Exception {
+        try (StubCbrServer stub = new StubCbrServer(TestDatabase.RUB_RATES, 0);
+             ExchangeRateService service = new ExchangeRateService(new ExchangeRateDAO(), stub.url())) {
+            RateSnapshot installed = service.refreshAsync(true).join();
+            assertEquals(1, stub.requests() - stub.notModified());
+
+            RateSnapshot renewed = service.refreshAsync(true).join();
+            assertEquals(stub.etag(), stub.lastIfNoneMatch());
+            assertEquals(1, stub.notModified());
+            // те же разобранные курсы и матрица, без повторного разбора; обновилось только время проверки
+            assertSame(installed.getRubRates(), renewed.getRubRates());
+            assertSame(renewed, service.getSnapshot());
+            assertEquals(installed.getRateDate(), renewed.getRateDate());
+        }
+    }
+}
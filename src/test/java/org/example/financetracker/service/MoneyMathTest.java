@@ -0,0 +1,172 @@
+package org.example.financetracker.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Свойства MoneyMath на случайных суммах и курсах: результат совпадает с BigDecimal
+// (amount.multiply(rate).setScale(2, HALF_UP) и divide(.., 6, HALF_UP)), в том числе
+// на входах, где произведение не помещается в long и срабатывает запасной путь,
+// а результат за пределами long даёт ArithmeticException.
+class MoneyMathTest {
+    // фиксированное зерно: упавший случай воспроизводится
+    private static final long SEED = 20_240_101L;
+    private static final int CASES = 200_000;
+    // предел DECIMAL(15,2) в копейках и DECIMAL(18,6) в миллионных
+    private static final long MAX_MINOR = 999_999_999_999_999L;
+    private static final long MAX_RATE_MICROS = 999_999_999_999_999_999L;
+
+    @Test
+    void convertMatchesBigDecimal() {
+        Random random = new Random(SEED);
+        for (int i = 0; i < CASES; i++) {
+            long minor = randomMinor(random);
+            long rateMicros = randomRateMicros(random);
+            assertConvert(minor, rateMicros);
+        }
+    }
+
+    @Test
+    void convertMatchesBigDecimalOnMultiplyHighFallback() {
+        Random random = new Random(SEED + 1);
+        int overflowing = 0;
+        for (int i = 0; i < CASES; i++) {
+            // произведение за пределами long, результат — в пределах
+            long minor = nextLong(random, 1_000_000_000_000L, MAX_MINOR) * (random.nextBoolean() ? 1 : -1);
+            long rateMicros = nextLong(random, 10_000_000L, 9_000_000_000L);
+            if (Math.multiplyHigh(minor, rateMicros) != ((minor * rateMicros) >> 63)) {
+                overflowing++;
+            }
+            assertConvert(minor, rateMicros);
+        }
+        assertNotEquals(0, overflowing, "ни один случай не дошёл до запасного пути");
+    }
+
+    @Test
+    void convertRoundsHalfAwayFromZero() {
+        // 0,01 × 0,5 = 0,005 → 0,01; знак не меняет направление округления
+        assertEquals(1, MoneyMath.convert(1, 500_000L));
+        assertEquals(-1, MoneyMath.convert(-1, 500_000L));
+        assertEquals(0, MoneyMath.convert(1, 499_999L));
+        assertEquals(0, MoneyMath.convert(-1, 499_999L));
+        assertEquals(0, MoneyMath.convert(0, MAX_RATE_MICROS));
+    }
+
+    @Test
+    void convertByBigDecimalRateMatchesBigDecimal() {
+        Random random = new Random(SEED + 2);
+        for (int i = 0; i < CASES; i++) {
+            long minor = randomMinor(random);
+            // до десяти знаков: часть курсов идёт быстрым путём, часть — через BigDecimal
+            BigDecimal rate = BigDecimal.valueOf(nextLong(random, 1, 100_000_000_000_000L), random.nextInt(11));
+            BigDecimal amount = MoneyMath.fromMinor(minor);
+            BigInteger expected = amount.multiply(rate).setScale(2, RoundingMode.HALF_UP).unscaledValue();
+            assertExact(expected, () -> MoneyMath.convert(minor, rate), amount + " × " + rate);
+        }
+    }
+
+    @Test
+    void toRateMicrosMatchesSetScale() {
+        Random random = new Random(SEED + 3);
+        for (int i = 0; i < CASES; i++) {
+            BigInteger unscaled = new BigInteger(1 + random.nextInt(80), random);
+            BigDecimal rate = new BigDecimal(unscaled, random.nextInt(15) - 3);
+            assertEquals(expectedRateMicros(rate), MoneyMath.toRateMicros(rate), rate::toPlainString);
+        }
+    }
+
+    @Test
+    void toRateMicrosRejectsExcessPrecisionAndOverflow() {
+        assertEquals(1_234_567L, MoneyMath.toRateMicros(new BigDecimal("1.234567000")));
+        assertEquals(Long.MIN_VALUE, MoneyMath.toRateMicros(new BigDecimal("1.2345678")));
+        assertEquals(90_000_000L, MoneyMath.toRateMicros(new BigDecimal("9E+1")));
+        assertEquals(Long.MIN_VALUE, MoneyMath.toRateMicros(new BigDecimal("9223372036854.775808")));
+        assertEquals(Long.MAX_VALUE, MoneyMath.toRateMicros(new BigDecimal("9223372036854.775807")));
+    }
+
+    @Test
+    void divideRatesMatchesBigDecimal() {
+        Random random = new Random(SEED + 4);
+        for (int i = 0; i < CASES; i++) {
+            long from = randomRateMicros(random);
+            long to = randomRateMicros(random);
+            assertDivide(from, to);
+        }
+    }
+
+    @Test
+    void divideRatesMatchesBigDecimalOnMultiplyHighFallback() {
+        Random random = new Random(SEED + 5);
+        for (int i = 0; i < CASES; i++) {
+            // from × 10^6 за пределами long
+            long from = nextLong(random, 10_000_000_000_000L, MAX_RATE_MICROS);
+            long to = nextLong(random, from / 1_000_000_000L + 1, MAX_RATE_MICROS);
+            assertDivide(from, to);
+        }
+        assertDivide(Long.MAX_VALUE, Long.MAX_VALUE);
+        assertDivide(Long.MAX_VALUE / 3, Long.MAX_VALUE - 1);
+    }
+
+    @Test
+    void divideRatesRoundsWithRemainderAbove2Pow62() {
+        // удвоение такого остатка при сравнении с делителем переполнило бы long
+        assertDivide(Long.MAX_VALUE / 1_000_000L, Long.MAX_VALUE);
+        assertDivide(Long.MAX_VALUE / 2_000_000L, Long.MAX_VALUE);
+        assertDivide(Long.MAX_VALUE / 2_000_000L + 1, Long.MAX_VALUE);
+    }
+
+    private static void assertConvert(long minor, long rateMicros) {
+        BigDecimal amount = MoneyMath.fromMinor(minor);
+        BigDecimal rate = BigDecimal.valueOf(rateMicros, MoneyMath.RATE_SCALE);
+        BigInteger expected = amount.multiply(rate).setScale(2, RoundingMode.HALF_UP).unscaledValue();
+        assertExact(expected, () -> MoneyMath.convert(minor, rateMicros), amount + " × " + rate);
+    }
+
+    private static void assertDivide(long fromMicros, long toMicros) {
+        BigDecimal from = BigDecimal.valueOf(fromMicros, MoneyMath.RATE_SCALE);
+        BigDecimal to = BigDecimal.valueOf(toMicros, MoneyMath.RATE_SCALE);
+        BigInteger expected = from.divide(to, MoneyMath.RATE_SCALE, RoundingMode.HALF_UP).unscaledValue();
+        assertExact(expected, () -> MoneyMath.divideRates(fromMicros, toMicros), from + " / " + to);
+    }
+
+    // результат за пределами long не должен молча обрезаться
+    private static void assertExact(BigInteger expected, LongSupplier actual, String operation) {
+        if (expected.bitLength() < Long.SIZE) {
+            assertEquals(expected.longValue(), actual.getAsLong(), operation);
+        } else {
+            assertThrows(ArithmeticException.class, actual::getAsLong, operation);
+        }
+    }
+
+    private static long expectedRateMicros(BigDecimal rate) {
+        if (rate.stripTrailingZeros().scale() > MoneyMath.RATE_SCALE) {
+            return Long.MIN_VALUE;
+        }
+        BigInteger micros = rate.setScale(MoneyMath.RATE_SCALE).unscaledValue();
+        return micros.bitLength() < Long.SIZE ? micros.longValue() : Long.MIN_VALUE;
+    }
+
+    // суммы всех порядков: от копеек до предела DECIMAL(15,2), с обоими знаками
+    private static long randomMinor(Random random) {
+        long bound = (long) Math.pow(10, 1 + random.nextInt(15));
+        long minor = nextLong(random, 0, Math.min(bound, MAX_MINOR));
+        return random.nextBoolean() ? minor : -minor;
+    }
+
+    private static long randomRateMicros(Random random) {
+        long bound = (long) Math.pow(10, 1 + random.nextInt(18));
+        return nextLong(random, 1, Math.min(bound, MAX_RATE_MICROS));
+    }
+
+    private static long nextLong(Random random, long from, long to) {
+        return random.nextLong(from, to + 1);
+    }
+}
@@ -0,0 +1,125 @@
+package org.example.financetracker.service;
+
+import org.example.financetracker.db.CategoryDAO;
+import org.example.financetracker.db.ExchangeRateDAO;
+import org.example.financetracker.db.MonthlySummaryDAO;
+import org.example.financetracker.model.Category;
+import org.example.financetracker.model.MonthlySummary;
+import org.example.financetracker.model.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// MONTHLY_SUMMARY, которую ведут записи через TransactionService (добавление, изменение, удаление,
+// перенос в другую категорию, импорт), совпадает построчно с пересчётом по всей истории
+class MonthlySummaryTest {
+    private static final YearMonth FROM = YearMonth.of(2000, 1);
+    private static final YearMonth TO = YearMonth.of(2100, 12);
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void openDatabase() throws Exception {
+        TestDatabase.open(dir);
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        TestDatabase.close();
+    }
+
+    @Test
+    void maintainedSummaryMatchesRebuild() throws Exception {
+        CategoryDAO categories = new CategoryDAO();
+        Category salary = categories.find("Зарплата", "income");
+        Category food = categories.find("Продукты", "expense");
+        Category transport = categories.find("Транспорт", "expense");
+
+        try (ExchangeRateService rates = new ExchangeRateService(new ExchangeRateDAO())) {
+            TransactionService service = new TransactionService(rates);
+            // суммы уже загружены — записи идут и в них, и в MONTHLY_SUMMARY
+            service.calculateTotalBalance();
+
+            Transaction pay = transaction("Зарплата", "100000.00", "RUB", "2024-01-10", salary);
+            Transaction bread = transaction("Хлеб", "120.50", "RUB", "2024-01-11", food);
+            Transaction taxi = transaction("Такси", "15.00", "USD", "2024-01-31", transport);
+            Transaction misc = transaction("Без категории", "300.00", "RUB", "2024-02-01", null);
+            service.addTransaction(pay);
+            service.addTransaction(bread);
+            service.addTransaction(taxi);
+            service.addTransaction(misc);
+            List<Transaction> batch = List.of(
+                    transaction("Кофе", "4.20", "EUR", "2024-02-03", food),
+                    transaction("Метро", "60.00", "RUB", "2024-02-03", transport),
+                    transaction("Премия", "20000.00", "RUB", "2024-03-05", salary));
+            service.addTransactions(batch);
+
+            // другая сумма, месяц, валюта и категория у одной строки
+            Transaction moved = service.getAllTransactions().stream()
+                    .filter(t -> t.getId().equals(bread.getId())).findFirst().orElseThrow();
+            moved.setAmount(new BigDecimal("99.90"));
+            moved.setTransaction_date(LocalDate.parse("2024-03-01"));
+            moved.setCurrency("CNY");
+            moved.setCategory_id(transport.getId());
+            moved.setCategory(transport);
+            service.updateTransaction(moved);
+
+            Transaction coffee = batch.get(0);
+            coffee.setAmount(new BigDecimal("5.00"));
+            Transaction metro = batch.get(1);
+            metro.setTransaction_date(LocalDate.parse("2024-01-20"));
+            service.updateTransactions(List.of(coffee, metro));
+
+            service.recategorize(List.of(taxi.getId(), metro.getId()), food);
+            service.recategorize(List.of(misc.getId()), transport);
+            service.recategorize(List.of(coffee.getId()), null);
+            service.deleteTransaction(pay.getId());
+
+            Path csv = dir.resolve("statement.csv");
+            Files.writeString(csv, """
+                    date;title;amount;currency;category
+                    2024-01-15;Аванс;50000,00;RUB;Зарплата
+                    2024-02-16;Книга;-10,00;USD;Развлечения
+                    2024-03-17;Обед;-700,00;RUB;Продукты
+                    """);
+            assertEquals(3, service.importStatement(csv).getRowsImported());
+
+            MonthlySummaryDAO summary = new MonthlySummaryDAO();
+            List<String> maintained = rows(summary.findRange(FROM, TO));
+            assertFalse(maintained.isEmpty());
+            service.rebuildMonthlySummary();
+            assertEquals(rows(summary.findRange(FROM, TO)), maintained);
+        }
+    }
+
+    // строки итогов в сравнимом виде: сумма без хвостовых нулей
+    private static List<String> rows(List<MonthlySummary> summary) {
+        return summary.stream()
+                .map(s -> s.getMonth() + " " + s.getCategoryId() + " " + s.getCurrency() + " "
+                        + s.getTotal().stripTrailingZeros().toPlainString() + " x" + s.getCount())
+                .toList();
+    }
+
+    private static Transaction transaction(String title, String amount, String currency, String date, Category category) {
+        Transaction t = new Transaction();
+        t.setTitle(title);
+        t.setAmount(new BigDecimal(amount));
+        t.setCurrency(currency);
+        t.setTransaction_date(LocalDate.parse(date));
+        t.setCategory_id(category != null ? category.getId() : null);
+        t.setCategory(category);
+        return t;
+    }
+}
@@ -0,0 +1,165 @@
+package org.example.financetracker.service;
+
+import org.example.financetracker.db.ExchangeRateDAO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Параллельный опрос источников курсов без сети: побеждает первый годный ответ — зависший ЦБ не задерживает
+// ответившие запасные источники, опоздавший источник не принимается, отказ соединения не задерживает вовсе,
+// а при отказе всех остаются прежние курсы; валюта, пропавшая из новых курсов, берётся по последнему известному
+class RateProviderFailoverTest {
+    private static final Duration CBR_DEADLINE = Duration.ofMillis(300);
+    // запас на планирование потоков и первый разбор ответа
+    private static final long SLACK_MILLIS = 500;
+    private static final Map<String, BigDecimal> STATIC_RATES = Map.of("USD", new BigDecimal("80.000000"));
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void openDatabase() throws Exception {
+        TestDatabase.open(dir);
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        TestDatabase.close();
+    }
+
+    @Test
+    void hangingCbrDoesNotDelayStaticRates() throws Exception {
+        try (StubCbrServer slow = new StubCbrServer(TestDatabase.RUB_RATES, 5_000)) {
+            long millis = assertRefresh(List.of(new CbrRateProvider(slow.url(), CBR_DEADLINE),
+                    new StaticRateProvider(STATIC_RATES)), "80.000000");
+            assertTrue(millis < CBR_DEADLINE.toMillis(), "заданные курсы ждали срока ЦБ: " + millis + " мс");
+        }
+    }
+
+    @Test
+    void hangingCbrAloneGivesUpAtItsDeadline() throws Exception {
+        try (StubCbrServer slow = new StubCbrServer(TestDatabase.RUB_RATES, 5_000);
+             ExchangeRateService service = new ExchangeRateService(new ExchangeRateDAO(),
+                     List.of(new CbrRateProvider(slow.url(), CBR_DEADLINE)))) {
+            RateSnapshot before = service.getSnapshot();
+            long start = System.nanoTime();
+            assertSame(before, service.refreshAsync(true).join());
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            assertTrue(millis >= CBR_DEADLINE.toMillis(), "опрос прекращён до срока ЦБ: " + millis + " мс");
+            assertTrue(millis < CBR_DEADLINE.toMillis() + SLACK_MILLIS, "обновление заняло " + millis + " мс");
+        }
+    }
+
+    @Test
+    void refusedCbrFallsBackToFileWithoutWaiting() throws Exception {
+        Files.writeString(dir.resolve("2024-03-01.csv"), "currency;rate\nUSD;91,5\nEUR;99,25\n");
+        long millis = assertRefresh(List.of(new CbrRateProvider(deadUrl(), CBR_DEADLINE), new FileRateProvider(dir)),
+                "91.500000");
+        assertTrue(millis < CBR_DEADLINE.toMillis(), "отказ соединения ждал срока ЦБ: " + millis + " мс");
+    }
+
+    @Test
+    void fasterCbrWinsOverSlowerProvider() throws Exception {
+        RateProvider slow = new RateProvider() {
+            @Override
+            public String name() {
+                return "медленный";
+            }
+
+            @Override
+            public RateSnapshot fetch(RateSnapshot current) throws InterruptedException {
+                Thread.sleep(CBR_DEADLINE.toMillis());
+                return new StaticRateProvider(STATIC_RATES).fetch(current);
+            }
+        };
+        try (StubCbrServer healthy = new StubCbrServer(TestDatabase.RUB_RATES, 50)) {
+            long millis = assertRefresh(List.of(slow, new CbrRateProvider(healthy.url(), CBR_DEADLINE)),
+                    TestDatabase.RUB_RATES.get("USD").toPlainString());
+            assertTrue(millis < CBR_DEADLINE.toMillis(), "ответ ЦБ ждал медленный источник: " + millis + " мс");
+        }
+    }
+
+    @Test
+    void failingProviderIsSkipped() {
+        RateProvider failing = new RateProvider() {
+            @Override
+            public String name() {
+                return "сбойный";
+            }
+
+            @Override
+            public RateSnapshot fetch(RateSnapshot current) throws IOException {
+                throw new IOException("нет ответа");
+            }
+        };
+        assertRefresh(List.of(failing, new StaticRateProvider(STATIC_RATES)), "80.000000");
+    }
+
+    @Test
+    void keepsCurrentRatesWhenAllProvidersFail() throws Exception {
+        try (ExchangeRateService service = new ExchangeRateService(new ExchangeRateDAO(),
+                List.of(new CbrRateProvider(deadUrl(), CBR_DEADLINE), new FileRateProvider(dir.resolve("missing"))))) {
+            RateSnapshot before = service.getSnapshot();
+            RateSnapshot after = service.refreshAsync(true).join();
+            assertSame(before, after);
+            assertSame(before, service.getSnapshot());
+            assertNotEquals(CircuitBreaker.State.CLOSED, service.getFetchState());
+        }
+    }
+
+    @Test
+    void currencyMissingFromNewRatesFallsBackToLastKnownRate() {
+        try (ExchangeRateService service = new ExchangeRateService(new ExchangeRateDAO(),
+                List.of(new StaticRateProvider(STATIC_RATES)))) {
+            service.startBackgroundRefresh(Set::of);
+            RateSnapshot fetched = service.refreshAsync(true).join();
+            assertFalse(fetched.contains("EUR"));
+
+            // EUR нет в новых курсах — последний сохранённый курс вместо исключения
+            assertEquals(0, TestDatabase.RUB_RATES.get("EUR").compareTo(service.getRate("EUR", "RUB")));
+            // курса нет нигде — null, сумму пропускает вызывающий
+            assertNull(service.getRate("GBP", "RUB"));
+        }
+    }
+
+    // Обновляет курсы через providers, проверяет курс USD и возвращает время обновления в мс
+    private static long assertRefresh(List<RateProvider> providers, String expectedUsd) {
+        try (ExchangeRateService service = new ExchangeRateService(new ExchangeRateDAO(), providers)) {
+            long start = System.nanoTime();
+            RateSnapshot result = service.refreshAsync(true).join();
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            BigDecimal usd = result.getRate("USD", "RUB");
+            assertNotNull(usd);
+            assertEquals(0, new BigDecimal(expectedUsd).compareTo(usd), "курс USD " + usd);
+            assertSame(result, service.getSnapshot());
+            return millis;
+        }
+    }
+
+    // Адрес, по которому никто не слушает: соединение сразу отклоняется
+    private static String deadUrl() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            return "http://127.0.0.1:" + socket.getLocalPort() + "/daily_json.js";
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.financetracker.service;
+
+import org.example.financetracker.db.ExchangeRateDAO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Обновление курсов под нагрузкой против локальной заглушки ЦБ: в каждом раунде сотни потоков одновременно
+// жмут "Обновить курсы" и спрашивают курс новой валюты. На раунд уходит один запрос к ЦБ, одновременных
+// запросов не бывает больше одного, а каждый получатель узнаёт о каждом новом снимке.
+class RateRefreshStressTest {
+    private static final long LATENCY_MILLIS = 100;
+    private static final int ROUNDS = 5;
+    private static final int THREADS = 300;
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void openDatabase() throws Exception {
+        TestDatabase.open(dir);
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        TestDatabase.close();
+    }
+
+    @Test
+    void concurrentRefreshesShareOneFetchAndReachEveryListener() throws Exception {
+        Map<String, BigDecimal> published = new HashMap<>(TestDatabase.RUB_RATES);
+        // валюты нет в сохранённых курсах — первый getRate(GBP) должен сходить в сеть
+        published.put("GBP", new BigDecimal("115.500000"));
+
+        try (StubCbrServer stub = new StubCbrServer(published, LATENCY_MILLIS);
+             ExchangeRateService service = new ExchangeRateService(new ExchangeRateDAO(), stub.url());
+             ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+
+            // получатели подписываются в первом раунде, одновременно с загрузкой и рассылкой снимка
+            Queue<AtomicInteger> received = new ConcurrentLinkedQueue<>();
+            for (int round = 0; round < ROUNDS; round++) {
+                int before = stub.requests();
+                boolean subscribe = round == 0;
+                CountDownLatch go = new CountDownLatch(1);
+                List<Future<?>> calls = new ArrayList<>(THREADS);
+                for (int i = 0; i < THREADS; i++) {
+                    int kind = i % 3;
+                    calls.add(pool.submit(() -> {
+                        go.await();
+                        switch (kind) {
+                            case 0 -> service.refreshAllRates("RUB");
+                            case 1 -> assertTrue(service.getRate("GBP", "USD").signum() > 0);
+                            default -> {
+                                if (subscribe) {
+                                    AtomicInteger count = new AtomicInteger();
+                                    received.add(count);
+                                    service.addListener(snapshot -> count.incrementAndGet());
+                                }
+                                service.getRate("USD", "EUR");
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                go.countDown();
+                for (Future<?> call : calls) {
+                    call.get();
+                }
+                assertEquals(1, stub.requests() - before, "запросов к ЦБ в раунде " + round);
+            }
+
+            assertEquals(1, stub.maxConcurrent(), "одновременных запросов к ЦБ");
+            assertEquals(1, stub.requests() - stub.notModified(), "документ скачан целиком");
+            assertEquals(0, published.get("GBP").compareTo(service.getSnapshot().getRate("GBP", "RUB")));
+            assertFalse(service.getSnapshot().contains("XXX"), "валюта не из списка ЦБ");
+            // каждый следующий раунд публикует новый снимок (полный или подтверждённый 304) всем получателям
+            assertEquals(THREADS / 3, received.size());
+            for (AtomicInteger count : received) {
+                assertTrue(count.get() == ROUNDS - 1 || count.get() == ROUNDS, "получатель узнал о " + count + " снимках");
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.financetracker.service;
+
+import org.example.financetracker.db.ExchangeRateDAO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Импорт выписки: строка в валюте без курса отклоняется, остальные импортируются, баланс считается
+class StatementImporterTest {
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void openDatabase() throws Exception {
+        TestDatabase.open(dir);
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        TestDatabase.close();
+    }
+
+    @Test
+    void unknownCurrencyRowIsRejected() throws Exception {
+        Path csv = dir.resolve("statement.csv");
+        Files.writeString(csv, """
+                date;title;amount;currency;category
+                2024-01-15;Зарплата;1000,00;RUB;Зарплата
+                2024-01-16;Книга;-10,00;USD;Развлечения
+                2024-01-17;Неизвестно что;-5,00;ZZZ;Прочие расходы
+                """);
+        try (ExchangeRateService rates = new ExchangeRateService(new ExchangeRateDAO())) {
+            TransactionService service = new TransactionService(rates);
+            ImportResult result = service.importStatement(csv);
+
+            assertEquals(2, result.getRowsImported());
+            assertEquals(1, result.getRowsRejected());
+            // 1000 − 10 × 90,9876
+            assertEquals(0, new BigDecimal("90.12").compareTo(service.calculateTotalBalance()),
+                    service.calculateTotalBalance().toPlainString());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.financetracker.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Локальная заглушка документа ЦБ (daily_json.js) для тестов без сети.
+// Считает запросы и максимальное число одновременных, отвечает с заданной задержкой.
+// Отдаёт ETag и Last-Modified; на совпавший If-None-Match / If-Modified-Since отвечает 304 без тела.
+final class StubCbrServer implements AutoCloseable {
+    private final HttpServer server;
+    private final long latencyMillis;
+    private final byte[] body;
+    private final String etag;
+    private final String lastModified;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    // If-None-Match последнего запроса
+    private volatile String ifNoneMatch;
+
+    StubCbrServer(Map<String, BigDecimal> rubRates, long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.body = document(rubRates).getBytes(StandardCharsets.UTF_8);
+        this.etag = "\"" + Integer.toHexString(Arrays.hashCode(body)) + "\"";
+        this.lastModified = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).withNano(0));
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/daily_json.js", this::handle);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/daily_json.js";
+    }
+
+    int requests() {
+        return requests.get();
+    }
+
+    int maxConcurrent() {
+        return maxActive.get();
+    }
+
+    // Ответов 304 (документ не изменился)
+    int notModified() {
+        return notModified.get();
+    }
+
+    String etag() {
+        return etag;
+    }
+
+    String lastIfNoneMatch() {
+        return ifNoneMatch;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(latencyMillis);
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.getResponseHeaders().set("Last-Modified", lastModified);
+            if (etag.equals(ifNoneMatch)
+                    || lastModified.equals(exchange.getRequestHeaders().getFirst("If-Modified-Since"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.sendResponseHeaders(503, -1);
+        } finally {
+            active.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    // Документ в формате cbr-xml-daily.ru: служебные поля, раздел Valute с номиналом 10 и полями,
+    // которые клиент должен пропустить, плюс валюта не из списка ЦБ
+    private static String document(Map<String, BigDecimal> rubRates) {
+        StringBuilder json = new StringBuilder("{\"Date\":\"").append(LocalDate.now())
+                .append("T11:30:00+03:00\",\"PreviousDate\":\"").append(LocalDate.now().minusDays(1))
+                .append("T11:30:00+03:00\",\"PreviousURL\":\"//www.cbr-xml-daily.ru/archive\",\"Valute\":{")
+                .append("\"XXX\":{\"Nominal\":1,\"Value\":1.0},");
+        String separator = "";
+        for (Map.Entry<String, BigDecimal> rate : rubRates.entrySet()) {
+            json.append(separator).append('"').append(rate.getKey()).append("\":{\"ID\":\"R01235\",\"NumCode\":\"840\",")
+                    .append("\"CharCode\":\"").append(rate.getKey()).append("\",\"Nominal\":10,\"Name\":\"Валюта\",")
+                    .append("\"Value\":").append(rate.getValue().movePointRight(1).toPlainString())
+                    .append(",\"Previous\":").append(rate.getValue().toPlainString()).append('}');
+            separator = ",";
+        }
+        return json.append("}}").toString();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.financetracker.service;
+
+import org.example.financetracker.db.DataSource;
+import org.example.financetracker.db.DatabaseManager;
+import org.example.financetracker.db.ExchangeRateDAO;
+import org.example.financetracker.db.SettingsDAO;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+// Пустая БД H2 во временной папке теста со свежими курсами: ExchangeRateService не пойдёт в сеть сам
+public final class TestDatabase {
+    public static final Map<String, BigDecimal> RUB_RATES = Map.of(
+            "USD", new BigDecimal("90.987600"),
+            "EUR", new BigDecimal("98.123400"),
+            "CNY", new BigDecimal("12.600000"));
+
+    private TestDatabase() {
+    }
+
+    public static void open(Path dir) throws SQLException {
+        DataSource.shutdown();
+        System.setProperty("financetracker.db.url", "jdbc:h2:file:" + dir.resolve("test") + ";DB_CLOSE_ON_EXIT=FALSE");
+        DatabaseManager.initializeDatabase();
+        new SettingsDAO().setMainCurrency("RUB");
+        new ExchangeRateDAO().saveRubRates(RUB_RATES, LocalDateTime.now());
+    }
+
+    public static void close() {
+        DataSource.shutdown();
+        System.clearProperty("financetracker.db.url");
+    }
+}